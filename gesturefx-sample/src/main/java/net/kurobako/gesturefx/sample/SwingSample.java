@@ -4,21 +4,24 @@ import net.kurobako.gesturefx.GesturePane;
 import net.kurobako.gesturefx.sample.SamplerController.Sample;
 
 import java.awt.BorderLayout;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 import javax.swing.WindowConstants;
 import javax.swing.border.EmptyBorder;
 
-import javafx.animation.Interpolator;
 import javafx.application.Platform;
 import javafx.embed.swing.JFXPanel;
 import javafx.geometry.Insets;
+import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Scene;
@@ -55,8 +58,10 @@ public class SwingSample implements Sample{
 				JPanel ops = new JPanel();
 				JButton centre = new JButton("Centre image");
 				JButton x2 = new JButton("Zoom x2");
+				JLabel scale = new JLabel();
 				ops.add(centre);
 				ops.add(x2);
+				ops.add(scale);
 
 				JFXPanel fxPanel = new JFXPanel();
 				JFrame frame = new JFrame("GesturePane in Swing");
@@ -71,12 +76,21 @@ public class SwingSample implements Sample{
 					GesturePane pane = new GesturePane(new ImageView(LenaSample.LENA));
 					Scene scene = new Scene(pane, frame.getWidth(), frame.getHeight());
 					fxPanel.setScene(scene);
-					centre.addActionListener(ae -> pane.animate(LenaSample.DURATION)
-							.interpolateWith(Interpolator.EASE_BOTH)
-							.centreOn(pane.viewportCentre()));
-					x2.addActionListener(ae -> pane.animate(LenaSample.DURATION)
-							.interpolateWith(Interpolator.EASE_BOTH)
-							.zoomBy(2, pane.targetPointAtViewportCentre()));
+					// the listeners run on the EDT, queued commands are applied on the next pulse
+					// without a Platform.runLater per click
+					centre.addActionListener(ae -> pane.queueTransform(current ->
+							pane.getViewSolver().centreOn(current, new Point2D(
+									current.getTargetWidth() / 2, current.getTargetHeight() / 2))));
+					x2.addActionListener(ae -> pane.queueTransform(current ->
+							pane.getViewSolver().zoomTo(current, current.getScaleX() * 2,
+									current.targetPointAtViewportCentre())));
+					// and the state can be read back on the EDT directly
+					Timer timer = new Timer(100, ae -> scale.setText(String.format("%.2fx",
+							pane.getViewStateSnapshot().getScaleX())));
+					timer.start();
+					frame.addWindowListener(new WindowAdapter() {
+						@Override public void windowClosed(WindowEvent we) { timer.stop(); }
+					});
 				});
 
 			});
@@ -1,8 +1,8 @@
 package net.kurobako.gesturefx.sample;
 
-import net.kurobako.gesturefx.AffineEvent;
 import net.kurobako.gesturefx.GesturePane;
 import net.kurobako.gesturefx.GesturePane.Transformable;
+import net.kurobako.gesturefx.TransformBridge;
 import net.kurobako.gesturefx.sample.SamplerController.Sample;
 
 import java.io.PrintWriter;
@@ -18,12 +18,16 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
+import netscape.javascript.JSObject;
 
 import static java.lang.String.*;
 
 public class WebViewSample implements Sample {
 	public static final String INTERESTING_CSS = "https://upload.wikimedia" +
 			".org/wikipedia/commons/6/6c/Perlshaper_orthographic_example1.svg";
+
+	private TransformBridge bridge;
+
 	@Override
 	public Node mkRoot() {
 
@@ -58,26 +62,27 @@ public class WebViewSample implements Sample {
 				pane.zoomTo(1, Point2D.ZERO);
 
 
-				pane.addEventHandler(AffineEvent.CHANGED, e -> {
-					String script = format(
-							format("%s && (%s.style.transform = 'matrix(%%s,0,0,%%s,%%s,%%s)');",
-									root, root),
-							e.namedCurrent().scaleX(),
-							e.namedCurrent().scaleY(),
-							e.namedCurrent().translateX(),
-							e.namedCurrent().translateY());
+				// bind the update once and call it with numbers, the bridge pushes at most once
+				// per pulse and only when the view visibly changed
+				// the root is looked up on every call as it may not exist yet
+				JSObject apply = (JSObject) engine.executeScript(format(
+						"(function(a, b, c, d) { var root = %s; root && (root.style.transform = " +
+						"'matrix(' + a + ',0,0,' + b + ',' + c + ',' + d + ')'); })", root));
+				if (bridge != null) bridge.detach();
+				bridge = new TransformBridge((sx, sy, tx, ty) -> {
 					try {
-						engine.executeScript(script);
-					} catch (Exception e1) {
-						e1.printStackTrace();
+						apply.call("call", null, sx, sy, tx, ty);
+					} catch (Exception e) {
+						e.printStackTrace();
 					}
 				});
+				bridge.attach(pane);
 
 			});
 			Label description = new Label("GesturePane supports Transformable implementation. This" +
 					" " +
 					"sample shows a WebView behind an empty GesturePane " +
-					"listening for AffineEvents. The Affine matrix is " +
+					"pushing its transform through a TransformBridge. The Affine matrix is " +
 					"translated to CSS matrix and applied the the body " +
 					"element. \nBe aware that all mouse events will be " +
 					"consumed by the pane so you cannot click any " +
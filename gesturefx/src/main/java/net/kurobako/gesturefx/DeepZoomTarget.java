@@ -0,0 +1,155 @@
+package net.kurobako.gesturefx;
+
+import net.kurobako.gesturefx.GesturePane.Transformable;
+
+import java.util.Objects;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.geometry.Point2D;
+import javafx.scene.transform.Affine;
+
+/**
+ * A {@link Transformable} for deep zoom into targets with large coordinates, for example a
+ * map of 1e6 units viewed at 1000x.
+ * <p>
+ * At such scales the translation of the pane's {@link Affine} is in the order of 1e9 pixels and
+ * the coordinates to draw are in the order of 1e6 units. The doubles themselves are precise
+ * enough, but the graphics pipeline renders in single precision, so content drawn with them
+ * jitters by whole pixels. This target keeps a camera origin in whole target units and hands
+ * the delegate an {@link Affine} with only the small offset of that origin from the viewport;
+ * the delegate draws a target point {@code p} at {@code p - origin}, which is always close to 0.
+ * Once a target unit is larger than half of {@link #REBASE_THRESHOLD} pixels, the origin is a
+ * multiple of a power of two fraction of a unit instead, which is still exact, so that the
+ * offset stays below the threshold at any scale.
+ * <p>
+ * The origin is rebased transparently when the viewport moved more than
+ * {@link #REBASE_THRESHOLD} pixels away from it. This is decided once per pulse on
+ * {@link Transformable#viewChanged(ViewDelta)}, so the intermediate states of a change never
+ * rebase; the delegate should rebuild its geometry relative to the new origin when
+ * {@link #originProperty()} changes. Everything else, including
+ * {@link Transformable#viewChanged(ViewDelta)} after a rebase and
+ * {@link Transformable#outputScaleChanged(double, double)}, is passed through as it is.
+ * <pre>{@code
+ * DeepZoomTarget target = new DeepZoomTarget(mapRenderer);
+ * target.originProperty().addListener((o, p, n) -> mapRenderer.rebuildRelativeTo(n));
+ * pane.setTarget(target);
+ * }</pre>
+ */
+@SuppressWarnings("unused")
+public final class DeepZoomTarget implements Transformable {
+
+	/**
+	 * How far, in viewport pixels, the origin may be from the viewport before it is rebased.
+	 */
+	public static final double REBASE_THRESHOLD = 4096;
+
+	private final Transformable delegate;
+	private final Affine local = new Affine();
+	private final ReadOnlyObjectWrapper<Point2D> origin =
+			new ReadOnlyObjectWrapper<>(this, "origin", Point2D.ZERO);
+	private final InvalidationListener affineListener = o -> follow();
+
+	private Affine affine;
+	// multiples of a power of two, so that they are exact as long as they fit in 53 bits
+	private double originX, originY;
+
+	/**
+	 * @param delegate the target to draw relative to the origin; must not be null
+	 */
+	public DeepZoomTarget(Transformable delegate) {
+		this.delegate = Objects.requireNonNull(delegate);
+	}
+
+	@Override public double width() { return delegate.width(); }
+	@Override public double height() { return delegate.height(); }
+
+	@Override
+	public void setTransform(Affine affine) {
+		if (this.affine != null) listen(this.affine, false);
+		this.affine = affine;
+		listen(affine, true);
+		follow();
+		rebase();
+		delegate.setTransform(local);
+	}
+
+	@Override
+	public void viewChanged(ViewDelta delta) {
+		rebase();
+		delegate.viewChanged(delta);
+	}
+
+	@Override
+	public void outputScaleChanged(double outputScaleX, double outputScaleY) {
+		delegate.outputScaleChanged(outputScaleX, outputScaleY);
+	}
+
+	/**
+	 * The camera origin in target coordinates, integral unless a target unit is larger than half
+	 * of {@link #REBASE_THRESHOLD} pixels; the delegate draws relative to it.
+	 */
+	public Point2D getOrigin() { return origin.get(); }
+	public ReadOnlyObjectProperty<Point2D> originProperty() { return origin.getReadOnlyProperty(); }
+
+	/**
+	 * @return the transform handed to the delegate, which maps points relative to the origin to
+	 * the viewport
+	 */
+	public Affine getLocalTransform() { return local; }
+
+	/**
+	 * Returns the target point, relative to the origin, shown at the given viewport point. This
+	 * keeps the precision that is lost when computing the absolute target point and subtracting
+	 * the origin afterwards.
+	 *
+	 * @param viewportPoint the point in viewport coordinates
+	 * @return the target point relative to the origin
+	 */
+	public Point2D localPointAt(Point2D viewportPoint) {
+		return new Point2D((viewportPoint.getX() - local.getTx()) / local.getMxx(),
+				(viewportPoint.getY() - local.getTy()) / local.getMyy());
+	}
+
+	private void listen(Affine affine, boolean add) {
+		if (add) {
+			affine.mxxProperty().addListener(affineListener);
+			affine.myyProperty().addListener(affineListener);
+			affine.txProperty().addListener(affineListener);
+			affine.tyProperty().addListener(affineListener);
+		} else {
+			affine.mxxProperty().removeListener(affineListener);
+			affine.myyProperty().removeListener(affineListener);
+			affine.txProperty().removeListener(affineListener);
+			affine.tyProperty().removeListener(affineListener);
+		}
+	}
+
+	// keeps the local transform on the view between rebases, on every write to the transform
+	private void follow() {
+		local.setToTransform(
+				affine.getMxx(), 0, affine.getTx() + affine.getMxx() * originX,
+				0, affine.getMyy(), affine.getTy() + affine.getMyy() * originY);
+	}
+
+	private void rebase() {
+		// the origin is shown at t + s * origin
+		if (Math.abs(local.getTx()) <= REBASE_THRESHOLD &&
+				    Math.abs(local.getTy()) <= REBASE_THRESHOLD) return;
+		originX = originOf(affine.getTx(), affine.getMxx(), originX);
+		originY = originOf(affine.getTy(), affine.getMyy(), originY);
+		// listeners of the origin see the transform that goes with it
+		follow();
+		origin.set(new Point2D(originX, originY));
+	}
+
+	// the origin at the top left corner of the viewport, on a grid of target units fine enough
+	// that the origin is within half the threshold of it at this scale
+	private static double originOf(double translate, double scale, double current) {
+		if (scale <= 0) return current;
+		double step = scale <= REBASE_THRESHOLD / 2 ? 1 :
+				              Math.scalb(1.0, Math.getExponent(REBASE_THRESHOLD / 2 / scale));
+		return Math.floor(-translate / scale / step) * step;
+	}
+}
@@ -0,0 +1,99 @@
+package net.kurobako.gesturefx;
+
+import static net.kurobako.gesturefx.TransformAnimator.SX;
+import static net.kurobako.gesturefx.TransformAnimator.SY;
+import static net.kurobako.gesturefx.TransformAnimator.TX;
+import static net.kurobako.gesturefx.TransformAnimator.TY;
+
+/**
+ * Private API
+ * <br>
+ * A combined zoom and pan path between two states that keeps the motion perceptually smooth.
+ * <p>
+ * The state is tracked as the target point at the viewport centre and the visible width in
+ * target coordinates. If the destination is further than one visible width away, the path
+ * follows the optimal zoom-out, pan, zoom-in curve from J. J. van Wijk and W. A. A. Nuij,
+ * <em>Smooth and efficient zooming and panning</em> (2003). Otherwise the centre moves linearly
+ * while the scale changes geometrically.
+ */
+final class FlightPath implements TransformAnimator.Path {
+
+	// the curvature suggested by van Wijk and Nuij, ~1.42
+	private static final double RHO = Math.sqrt(2);
+	private static final double RHO2 = RHO * RHO;
+
+	private final double viewportWidth;
+	private final double viewportHeight;
+	private final double fromScaleX;
+	private final double fromScaleY;
+	private final double fromCentreX;
+	private final double fromCentreY;
+	private final double deltaX;
+	private final double deltaY;
+	private final double fromWidth;
+	private final double toWidth;
+	// corrects the y scale for non-uniform start and end aspect, 1 when uniform
+	private final double aspect;
+
+	private final boolean smooth;
+	private final double distance;
+	private final double r0;
+	private final double length;
+
+	FlightPath(double viewportWidth, double viewportHeight, double[] from, double[] to) {
+		this.viewportWidth = viewportWidth;
+		this.viewportHeight = viewportHeight;
+		this.fromScaleX = from[SX];
+		this.fromScaleY = from[SY];
+		this.fromCentreX = (viewportWidth / 2 - from[TX]) / from[SX];
+		this.fromCentreY = (viewportHeight / 2 - from[TY]) / from[SY];
+		this.deltaX = (viewportWidth / 2 - to[TX]) / to[SX] - fromCentreX;
+		this.deltaY = (viewportHeight / 2 - to[TY]) / to[SY] - fromCentreY;
+		this.fromWidth = viewportWidth / from[SX];
+		this.toWidth = viewportWidth / to[SX];
+		this.aspect = (to[SY] / fromScaleY) / (to[SX] / fromScaleX);
+		this.distance = Math.hypot(deltaX, deltaY);
+		this.smooth = distance > Math.max(fromWidth, toWidth);
+		if (smooth) {
+			double w0 = fromWidth;
+			double w1 = toWidth;
+			double u1 = distance;
+			double b0 = (w1 * w1 - w0 * w0 + RHO2 * RHO2 * u1 * u1) / (2 * w0 * RHO2 * u1);
+			double b1 = (w1 * w1 - w0 * w0 - RHO2 * RHO2 * u1 * u1) / (2 * w1 * RHO2 * u1);
+			this.r0 = Math.log(-b0 + Math.sqrt(b0 * b0 + 1));
+			double r1 = Math.log(-b1 + Math.sqrt(b1 * b1 + 1));
+			this.length = (r1 - r0) / RHO;
+		} else {
+			this.r0 = 0;
+			this.length = 0;
+		}
+	}
+
+	/**
+	 * @return whether the van Wijk curve is used, false for the direct path
+	 */
+	boolean isSmooth() { return smooth; }
+
+	@Override
+	public void at(double t, double[] out) {
+		double width;
+		double travelled;
+		if (smooth) {
+			double s = t * length;
+			double coshR0 = Math.cosh(r0);
+			travelled = fromWidth / RHO2 * (coshR0 * Math.tanh(RHO * s + r0) - Math.sinh(r0));
+			width = fromWidth * coshR0 / Math.cosh(RHO * s + r0);
+		} else {
+			travelled = t * distance;
+			width = fromWidth * Math.pow(toWidth / fromWidth, t);
+		}
+		double f = distance == 0 ? 0 : travelled / distance;
+		double ratio = fromWidth / width;
+		double scaleX = fromScaleX * ratio;
+		double scaleY = fromScaleY * ratio * Math.pow(aspect, t);
+		out[SX] = scaleX;
+		out[SY] = scaleY;
+		out[TX] = viewportWidth / 2 - (fromCentreX + deltaX * f) * scaleX;
+		out[TY] = viewportHeight / 2 - (fromCentreY + deltaY * f) * scaleY;
+	}
+}
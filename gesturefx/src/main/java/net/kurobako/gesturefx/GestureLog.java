@@ -0,0 +1,274 @@
+package net.kurobako.gesturefx;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+import javafx.animation.AnimationTimer;
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.geometry.Point2D;
+import javafx.scene.input.InputEvent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.input.ZoomEvent;
+
+/**
+ * An immutable log of input recorded by a {@link GestureRecorder}, which can be stored with
+ * {@link #toByteArray()} and replayed against a {@link GesturePane}.
+ * <p>
+ * {@link #replay(GesturePane)} fires all events at once, in order, so that replaying the same
+ * log against panes in the same state always ends in the same state, regardless of frame timing.
+ * {@link #play(GesturePane, Runnable)} fires the events with the recorded timing, each on the
+ * first pulse after it is due, so the pane does the same work per frame as when it was recorded;
+ * the time each frame took during playback can be collected to compare the frame costs of the
+ * same input between library versions. Both work headless and must be called on the FX application thread. Events are fired at the
+ * pane in pane coordinates, so it should have the same content, size and view as when recording
+ * started.
+ */
+@SuppressWarnings("unused")
+public final class GestureLog {
+
+	static final int MAGIC = 0x47465852; // GFXR
+	static final byte VERSION = 1;
+	static final int HEADER = Integer.BYTES + 1;
+
+	// the index of a type is its code in the log
+	static final List<EventType<? extends InputEvent>> TYPES = Arrays.asList(
+			MouseEvent.MOUSE_PRESSED, MouseEvent.MOUSE_RELEASED,
+			MouseEvent.MOUSE_DRAGGED, MouseEvent.MOUSE_CLICKED,
+			ScrollEvent.SCROLL_STARTED, ScrollEvent.SCROLL, ScrollEvent.SCROLL_FINISHED,
+			ZoomEvent.ZOOM_STARTED, ZoomEvent.ZOOM, ZoomEvent.ZOOM_FINISHED,
+			KeyEvent.KEY_PRESSED, KeyEvent.KEY_RELEASED, KeyEvent.KEY_TYPED);
+	// record sizes by type, including the type and time
+	private static final int MOUSE = 16, SCROLL = 23, ZOOM = 30, KEY = 12;
+	private static final int[] SIZES = {
+			MOUSE, MOUSE, MOUSE, MOUSE, SCROLL, SCROLL, SCROLL, ZOOM, ZOOM, ZOOM, KEY, KEY, KEY};
+	// the button of a mouse record follows its type, time, flags and position
+	private static final int MOUSE_BUTTON = 1 + Integer.BYTES + 1 + 2 * Float.BYTES;
+	private static final MouseButton[] BUTTONS = MouseButton.values();
+
+	private static final int SHIFT = 1, CONTROL = 1 << 1, ALT = 1 << 2, META = 1 << 3;
+	// primary/middle/secondary button down for mouse events, direct/inertia for gestures
+	private static final int FLAG_A = 1 << 4, FLAG_B = 1 << 5, FLAG_C = 1 << 6;
+
+	private static final Map<Integer, KeyCode> KEY_CODES = new HashMap<>();
+
+	static {
+		for (KeyCode code : KeyCode.values()) KEY_CODES.putIfAbsent(code.getCode(), code);
+	}
+
+	private final byte[] bytes;
+	private final int events;
+
+	GestureLog(byte[] bytes, int events) {
+		this.bytes = bytes;
+		this.events = events;
+	}
+
+	/**
+	 * Reads a log from the bytes returned by {@link #toByteArray()}.
+	 *
+	 * @param bytes the log; must not be null
+	 * @return the log
+	 * @throws IllegalArgumentException if the bytes are not a valid log
+	 */
+	public static GestureLog fromBytes(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (bytes.length < HEADER || buffer.getInt() != MAGIC)
+			throw new IllegalArgumentException("Not a gesture log");
+		byte version = buffer.get();
+		if (version != VERSION)
+			throw new IllegalArgumentException("Unknown gesture log version " + version);
+		int events = 0;
+		while (buffer.hasRemaining()) {
+			int type = buffer.get(buffer.position());
+			if (type < 0 || type >= TYPES.size())
+				throw new IllegalArgumentException("Unknown event type " + type +
+						                                   " at " + buffer.position());
+			if (buffer.remaining() < SIZES[type])
+				throw new IllegalArgumentException("Truncated event at " + buffer.position());
+			if (SIZES[type] == MOUSE) {
+				int button = buffer.get(buffer.position() + MOUSE_BUTTON);
+				if (button < 0 || button >= BUTTONS.length)
+					throw new IllegalArgumentException("Unknown mouse button " + button +
+							                                   " at " + buffer.position());
+			}
+			buffer.position(buffer.position() + SIZES[type]);
+			events++;
+		}
+		return new GestureLog(bytes.clone(), events);
+	}
+
+	/**
+	 * @return the encoded log
+	 */
+	public byte[] toByteArray() { return bytes.clone(); }
+
+	/**
+	 * @return the number of events in the log
+	 */
+	public int getEventCount() { return events; }
+
+	/**
+	 * @return the time from the first to the last event in nanoseconds, with microsecond
+	 * precision
+	 */
+	public long getDurationNanos() {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, HEADER, bytes.length - HEADER);
+		long micros = 0;
+		while (buffer.hasRemaining()) {
+			int type = buffer.get();
+			micros += buffer.getInt();
+			buffer.position(buffer.position() + SIZES[type] - 1 - Integer.BYTES);
+		}
+		return micros * 1000;
+	}
+
+	/**
+	 * Fires all events at the given pane at once, in the order they were recorded.
+	 *
+	 * @param pane the pane; must not be null
+	 */
+	public void replay(GesturePane pane) {
+		Objects.requireNonNull(pane);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, HEADER, bytes.length - HEADER);
+		while (buffer.hasRemaining()) {
+			int type = buffer.get();
+			buffer.getInt();
+			Event.fireEvent(pane, decode(type, buffer, pane));
+		}
+	}
+
+	/**
+	 * Fires the events at the given pane with the recorded timing, starting on the next pulse.
+	 *
+	 * @param pane       the pane; must not be null
+	 * @param onFinished called after the last event was fired, may be null
+	 * @return the timer that fires the events, {@link AnimationTimer#stop() stop} it to abort
+	 */
+	public AnimationTimer play(GesturePane pane, Runnable onFinished) {
+		return play(pane, null, onFinished);
+	}
+
+	/**
+	 * Fires the events at the given pane with the recorded timing like
+	 * {@link #play(GesturePane, Runnable)} and reports the duration of every frame of the
+	 * playback: the time from the start of a pulse to the start of the next one, which includes
+	 * handling the events of that frame, the layout and rendering. Frames slower than the pulse
+	 * rate are the stutter of that input.
+	 *
+	 * @param pane       the pane; must not be null
+	 * @param frameNanos receives the duration of each frame in nanoseconds on the FX application
+	 *                   thread, may be null
+	 * @param onFinished called after the last event was fired, may be null
+	 * @return the timer that fires the events, {@link AnimationTimer#stop() stop} it to abort
+	 */
+	public AnimationTimer play(GesturePane pane, LongConsumer frameNanos, Runnable onFinished) {
+		Objects.requireNonNull(pane);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, HEADER, bytes.length - HEADER);
+		AnimationTimer timer = new AnimationTimer() {
+			private long start = -1;
+			private long due = 0;
+			private long previous = -1;
+			private boolean fired;
+
+			@Override
+			public void handle(long now) {
+				if (start < 0) start = now;
+				if (frameNanos != null && previous >= 0) frameNanos.accept(now - previous);
+				previous = now;
+				while (!fired && buffer.hasRemaining()) {
+					int type = buffer.get(buffer.position());
+					long at = due + buffer.getInt(buffer.position() + 1) * 1000L;
+					if (at > now - start) return;
+					due = at;
+					buffer.position(buffer.position() + 1 + Integer.BYTES);
+					Event.fireEvent(pane, decode(type, buffer, pane));
+				}
+				// the frame of the last events ends on the next pulse
+				if (frameNanos != null && !fired) {
+					fired = true;
+					return;
+				}
+				stop();
+				if (onFinished != null) onFinished.run();
+			}
+		};
+		timer.start();
+		return timer;
+	}
+
+	static byte flags(boolean shift, boolean control, boolean alt, boolean meta,
+	                  boolean a, boolean b, boolean c) {
+		return (byte) ((shift ? SHIFT : 0) | (control ? CONTROL : 0) | (alt ? ALT : 0) |
+				               (meta ? META : 0) | (a ? FLAG_A : 0) | (b ? FLAG_B : 0) |
+				               (c ? FLAG_C : 0));
+	}
+
+	// decodes the rest of a record after its type and time
+	@SuppressWarnings("unchecked")
+	private static Event decode(int type, ByteBuffer buffer, GesturePane pane) {
+		int flags = buffer.get();
+		boolean shift = (flags & SHIFT) != 0;
+		boolean control = (flags & CONTROL) != 0;
+		boolean alt = (flags & ALT) != 0;
+		boolean meta = (flags & META) != 0;
+		boolean a = (flags & FLAG_A) != 0;
+		boolean b = (flags & FLAG_B) != 0;
+		boolean c = (flags & FLAG_C) != 0;
+		if (SIZES[type] == KEY) {
+			KeyCode code = KEY_CODES.getOrDefault(buffer.getInt(), KeyCode.UNDEFINED);
+			char ch = buffer.getChar();
+			String text = ch == 0 ? "" : String.valueOf(ch);
+			boolean typed = TYPES.get(type) == KeyEvent.KEY_TYPED;
+			return new KeyEvent((EventType<KeyEvent>) TYPES.get(type),
+					typed ? text : KeyEvent.CHAR_UNDEFINED, typed ? "" : text,
+					code, shift, control, alt, meta);
+		}
+		// events are constructed in scene coordinates, firing converts them back
+		Point2D local = new Point2D(buffer.getFloat(), buffer.getFloat());
+		Point2D scene = pane.localToScene(local);
+		Point2D screen = pane.localToScreen(local);
+		if (screen == null) screen = scene;
+		switch (SIZES[type]) {
+			case MOUSE:
+				MouseButton button = BUTTONS[buffer.get()];
+				int clicks = buffer.get();
+				return new MouseEvent((EventType<MouseEvent>) TYPES.get(type),
+						scene.getX(), scene.getY(), screen.getX(), screen.getY(),
+						button, clicks, shift, control, alt, meta, a, b, c,
+						false, false, false, null);
+			case SCROLL:
+				double dx = buffer.getFloat();
+				double dy = buffer.getFloat();
+				int touches = buffer.get();
+				return new ScrollEvent((EventType<ScrollEvent>) TYPES.get(type),
+						scene.getX(), scene.getY(), screen.getX(), screen.getY(),
+						shift, control, alt, meta, a, b, dx, dy, dx, dy,
+						ScrollEvent.HorizontalTextScrollUnits.NONE, 0,
+						ScrollEvent.VerticalTextScrollUnits.NONE, 0, touches, null);
+			default:
+				double factor = buffer.getDouble();
+				double total = buffer.getDouble();
+				return new ZoomEvent((EventType<ZoomEvent>) TYPES.get(type),
+						scene.getX(), scene.getY(), screen.getX(), screen.getY(),
+						shift, control, alt, meta, a, b, factor, total, null);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "GestureLog{" +
+				       "events=" + events +
+				       ", bytes=" + bytes.length +
+				       '}';
+	}
+}
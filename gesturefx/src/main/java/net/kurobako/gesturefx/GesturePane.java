@@ -2,12 +2,14 @@ package net.kurobako.gesturefx;
 
 import java.util.Objects;
 import java.util.Optional;
-import java.util.function.DoubleConsumer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 import javafx.animation.Interpolator;
-import javafx.animation.KeyFrame;
-import javafx.animation.KeyValue;
-import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.DefaultProperty;
 import javafx.beans.binding.DoubleBinding;
@@ -15,13 +17,12 @@ import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ChangeListener;
-import javafx.beans.value.WritableValue;
-import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.event.EventType;
 import javafx.geometry.BoundingBox;
@@ -35,13 +36,16 @@ import javafx.scene.Parent;
 import javafx.scene.control.Control;
 import javafx.scene.control.ScrollBar;
 import javafx.scene.control.Skin;
+import javafx.scene.input.InputEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.input.ZoomEvent;
 import javafx.scene.layout.Region;
 import javafx.scene.transform.Affine;
 import javafx.scene.transform.NonInvertibleTransformException;
 import javafx.util.Duration;
 
 import static net.kurobako.gesturefx.GesturePane.FitMode.FIT;
-import static net.kurobako.gesturefx.GesturePane.FitMode.UNBOUNDED;
 import static net.kurobako.gesturefx.GesturePane.ScrollBarPolicy.AS_NEEDED;
 import static net.kurobako.gesturefx.GesturePane.ScrollMode.PAN;
 
@@ -86,10 +90,17 @@ public class GesturePane extends Control implements GesturePaneOps {
 	public static final double DEFAULT_MIN_SCALE = 0.5f;
 	public static final double DEFAULT_MAX_SCALE = 10f;
 	public static final double DEFAULT_ZOOM_FACTOR = 1f;
+	/** The maximum number of views kept by {@link #back()} and {@link #forward()}. */
+	public static final int HISTORY_CAPACITY = 64;
+	/** The duration of the animation that settles a zoom gesture onto the zoom ladder. */
+	public static final Duration ZOOM_SNAP_DURATION = Duration.millis(200);
 
 	final Affine affine = new Affine();
 	private boolean inhibitPropEvent = false;
 	private boolean clampExternalScale = true;
+	// set while commit(...) writes the affine, the skin defers its updates to onCommit
+	boolean committing = false;
+	Runnable onCommit = () -> {};
 
 
 	// XXX in general, these should be written like the JDK counterpart(lazy instantiation of
@@ -107,6 +118,8 @@ public class GesturePane extends Control implements GesturePaneOps {
 	final ObjectProperty<ScrollMode> scrollMode = new SimpleObjectProperty<>(PAN);
 	final ObjectProperty<FitMode> fitMode = new SimpleObjectProperty<>(FIT);
 	final BooleanProperty invertScrollTranslate = new SimpleBooleanProperty(false);
+	final BooleanProperty keyboardNavigation = new SimpleBooleanProperty(false);
+	final ObjectProperty<ZoomLadder> zoomLadder = new SimpleObjectProperty<>();
 
 
 
@@ -132,6 +145,10 @@ public class GesturePane extends Control implements GesturePaneOps {
 	final DoubleProperty targetWidth = new SimpleDoubleProperty();
 	final DoubleProperty targetHeight = new SimpleDoubleProperty();
 	final ObjectProperty<Bounds> viewport = new SimpleObjectProperty<>(ZERO_BOX);
+	final DoubleProperty outputScaleX = new SimpleDoubleProperty(1);
+	final DoubleProperty outputScaleY = new SimpleDoubleProperty(1);
+	final DoubleProperty devicePixelsPerUnitX = new SimpleDoubleProperty(1);
+	final DoubleProperty devicePixelsPerUnitY = new SimpleDoubleProperty(1);
 
 	/**
 	 * Creates a new {@link GesturePane} backed by the given {@link Transformable}.
@@ -164,6 +181,8 @@ public class GesturePane extends Control implements GesturePaneOps {
 	@SuppressWarnings("this-escape")
 	public GesturePane() {
 		super();
+		// subscribers receive the state of a new pane until it changes
+		viewStates = new ViewStatePublisher(getViewState());
 		// can't use bindBidirectional here because we need to clamp 
 		// scale -> mxx,myy but not the other way around
 		affine.mxxProperty().addListener(o -> scaleX.set(affine.getMxx()));
@@ -185,16 +204,51 @@ public class GesturePane extends Control implements GesturePaneOps {
 			if (!inhibitPropEvent) fireAffineEvent(AffineEvent.CHANGED);
 		});
 
+		devicePixelsPerUnitX.bind(outputScaleX.multiply(scaleX));
+		devicePixelsPerUnitY.bind(outputScaleY.multiply(scaleY));
+
 		getStyleClass().setAll(DEFAULT_STYLE_CLASS);
 		setAccessibleRole(AccessibleRole.SCROLL_PANE);
+		// the history records where changes start and finish, except for its own restores
+		addEventHandler(AffineEvent.CHANGE_STARTED, e -> {
+			if (restoring) return;
+			Point2D centre = targetPointAtViewportCentre();
+			history.anchor(getCurrentScaleX(), getCurrentScaleY(),
+					centre.getX(), centre.getY(), System.nanoTime());
+		});
+		addEventHandler(AffineEvent.CHANGE_FINISHED, e -> {
+			if (restoring) return;
+			Point2D centre = targetPointAtViewportCentre();
+			history.record(getCurrentScaleX(), getCurrentScaleY(),
+					centre.getX(), centre.getY(), System.nanoTime());
+		});
+		// a gesture takes over from an animated restore, which then ends where it was
+		EventHandler<InputEvent> interruptRestore = e -> {
+			if (restoreAnimation == null || !gestureEnabled.get()) return;
+			animator.cancel();
+			finishRestore();
+		};
+		addEventFilter(MouseEvent.MOUSE_PRESSED, interruptRestore);
+		addEventFilter(ScrollEvent.ANY, interruptRestore);
+		addEventFilter(ZoomEvent.ANY, interruptRestore);
+		// the target viewport changes once per transform or viewport change, publish with it
+		targetRect.addListener((o, p, n) -> {
+			viewStates.publish(
+					getCurrentScaleX(), getCurrentScaleY(), affine.getTx(), affine.getTy(),
+					getViewportWidth(), getViewportHeight(), getTargetWidth(), getTargetHeight());
+			if (target.get() != null) deltaTrigger.request();
+		});
 		target.addListener((o, p, n) -> {
 			if (n == null) return;
 			runLaterOrNowIfOnFXThread(() -> {
 				content.set(null);
 				getChildren().removeIf(x -> !(x instanceof ScrollBar));
 				n.setTransform(affine);
+				n.outputScaleChanged(outputScaleX.get(), outputScaleY.get());
 				targetWidth.set(n.width());
 				targetHeight.set(n.height());
+				deliveredState = getViewState();
+				deltaTrigger.request();
 			});
 		});
 
@@ -315,6 +369,253 @@ public class GesturePane extends Control implements GesturePaneOps {
 		translateBy(new Dimension2D(0, delta));
 	}
 
+	@Override
+	public void flyTo(Point2D pointOnTarget, double scale) {
+		fireAffineEvent(AffineEvent.CHANGE_STARTED);
+		centreAt(scale, scale, pointOnTarget.getX(), pointOnTarget.getY());
+		fireAffineEvent(AffineEvent.CHANGE_FINISHED);
+	}
+
+	@Override
+	public void zoomToRegion(Bounds targetRegion) {
+		flyTo(centreOf(targetRegion), scaleToFit(targetRegion));
+	}
+
+	private static Point2D centreOf(Bounds bounds) {
+		return new Point2D(bounds.getMinX() + bounds.getWidth() / 2,
+				bounds.getMinY() + bounds.getHeight() / 2);
+	}
+
+	private double scaleToFit(Bounds bounds) {
+		if (bounds.getWidth() <= 0 || bounds.getHeight() <= 0) return getMaxScale();
+		return Math.min(getViewportWidth() / bounds.getWidth(),
+				getViewportHeight() / bounds.getHeight());
+	}
+
+	/**
+	 * Returns a snapshot of the current scale and translation together with the viewport and
+	 * target dimensions. Must be called on the FX application thread, the returned state can
+	 * then be used on any thread.
+	 *
+	 * @return the current view state
+	 */
+	public ViewState getViewState() {
+		return new ViewState(getCurrentScaleX(), getCurrentScaleY(),
+				affine.getTx(), affine.getTy(),
+				getViewportWidth(), getViewportHeight(),
+				getTargetWidth(), getTargetHeight());
+	}
+
+	/**
+	 * Captures the current view so that it can be persisted with {@link ViewState#toText()} or
+	 * {@link ViewState#writeTo(java.nio.ByteBuffer)} and restored later with
+	 * {@link #restoreViewState(ViewState)}, for example across application restarts. Must be
+	 * called on the FX application thread.
+	 *
+	 * @return the current view state
+	 */
+	public ViewState captureViewState() { return getViewState(); }
+
+	/**
+	 * Restores a view captured with {@link #captureViewState()} as a single change.
+	 * <p>
+	 * Unlike {@link #postViewState(ViewState)}, which applies the translation as it is, the view
+	 * is restored independently of the viewport size: the target point that was at the centre of
+	 * the captured viewport is centred with the captured scale. If the target has a different
+	 * size than when the view was captured (e.g. the same document rendered at another
+	 * resolution), that point and the scale are mapped proportionally, so the same part of the
+	 * target is shown. The result is bounded by the current min/max scale and fit mode. Must be
+	 * called on the FX application thread.
+	 *
+	 * @param state the captured state; must not be null
+	 */
+	public void restoreViewState(ViewState state) {
+		Objects.requireNonNull(state);
+		double kx = ratio(getTargetWidth(), state.getTargetWidth());
+		double ky = ratio(getTargetHeight(), state.getTargetHeight());
+		Point2D centre = state.targetPointAtViewportCentre();
+		fireAffineEvent(AffineEvent.CHANGE_STARTED);
+		centreAt(state.getScaleX() / kx, state.getScaleY() / ky,
+				centre.getX() * kx, centre.getY() * ky);
+		fireAffineEvent(AffineEvent.CHANGE_FINISHED);
+	}
+
+	// the factor target coordinates changed by, 1 if either size is unknown
+	private static double ratio(double current, double captured) {
+		return current > 0 && captured > 0 ? current / captured : 1;
+	}
+
+	/**
+	 * Returns a solver with the current fit mode and min/max scale of this pane. Must be called
+	 * on the FX application thread, the returned solver can then be used on any thread. The
+	 * solver does not follow later changes of these properties.
+	 *
+	 * @return a solver for {@link ViewState}s of this pane
+	 */
+	public ViewSolver getViewSolver() {
+		return new ViewSolver(getFitMode(), getMinScale(), getMaxScale());
+	}
+
+	/**
+	 * Applies the scale and translation of the given state on the next pulse; this method may be
+	 * called from any thread.
+	 * <p>
+	 * Only the latest state posted before a pulse is applied, earlier ones are discarded, so a
+	 * producer may post as often as it likes without queueing work on the FX application thread.
+	 * The state is applied as a single change on the FX application thread, where locked scales
+	 * are kept and the result is bounded by the current viewport and fit mode (see
+	 * {@link ViewSolver}); the viewport and target dimension of the state are not used.
+	 *
+	 * @param state the state to apply; must not be null
+	 */
+	public void postViewState(ViewState state) {
+		Objects.requireNonNull(state);
+		postTransform(current -> state);
+	}
+
+	/**
+	 * Posts a transform to be applied on the next pulse; this method may be called from any
+	 * thread. This is the thread-safe counterpart of calling {@link GesturePaneOps} methods via
+	 * {@link Platform#runLater(Runnable)}, without the queue:
+	 * <pre>{@code
+	 * // on the FX thread
+	 * ViewSolver solver = pane.getViewSolver();
+	 * // on any thread
+	 * pane.postTransform(current -> solver.zoomTo(current, 4, pivot));
+	 * }</pre>
+	 * The pane keeps a single slot for posted transforms: posting replaces a transform that was
+	 * not applied yet, so at most one transform runs per pulse no matter how fast producers
+	 * post. A transform should therefore describe the desired view (centre on, zoom to) rather than
+	 * a delta, as replaced transforms are never applied. See {@link #getPostedCount()} and
+	 * {@link #getDroppedCount()}.
+	 *
+	 * @param transform receives the current state on the FX application thread and returns the
+	 *                  state to apply; must not be null
+	 */
+	public void postTransform(UnaryOperator<ViewState> transform) {
+		mailbox.post(transform);
+		mailboxTrigger.request();
+	}
+
+	/**
+	 * @return the number of transforms posted with {@link #postTransform(UnaryOperator)} and
+	 * {@link #postViewState(ViewState)} since this pane was created; safe to call from any thread
+	 */
+	public long getPostedCount() { return mailbox.postedCount(); }
+
+	/**
+	 * @return the number of posted transforms that were replaced by a later one before they could
+	 * be applied; safe to call from any thread
+	 */
+	public long getDroppedCount() { return mailbox.droppedCount(); }
+
+	/**
+	 * Returns a publisher of the {@link ViewState} that signals its subscribers on the
+	 * {@link ForkJoinPool#commonPool()}, see {@link #viewStatePublisher(Executor)}.
+	 *
+	 * @return a publisher of view state changes
+	 */
+	public Flow.Publisher<ViewState> viewStatePublisher() {
+		return viewStatePublisher(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Returns a publisher of the {@link ViewState} that signals its subscribers on the given
+	 * executor. This is an alternative to handling {@link AffineEvent#CHANGED} for consumers that
+	 * do not live on the FX application thread, such as tile prefetchers or remote mirrors.
+	 * <p>
+	 * The publisher supports backpressure by conflation: a subscriber receives at most one state
+	 * per requested item and, when it requests more, only the latest state; states published in
+	 * between are skipped. A new subscriber receives the current state on its first request. The
+	 * FX application thread only records the new state and never waits on subscribers.
+	 *
+	 * @param executor the executor to signal subscribers on; must not be null
+	 * @return a publisher of view state changes
+	 */
+	public Flow.Publisher<ViewState> viewStatePublisher(Executor executor) {
+		return viewStates.on(executor);
+	}
+
+	/**
+	 * Queues a transform to be applied on the next pulse; this method may be called from any
+	 * thread, for example from Swing listeners when the pane is hosted in a
+	 * {@code JFXPanel}.
+	 * <p>
+	 * Unlike {@link #postTransform(UnaryOperator)}, queued transforms are never dropped: all
+	 * transforms queued before a pulse are applied in order, each receiving the result of the
+	 * previous one, and the outcome is committed as a single change. This suits relative commands
+	 * such as zoom or pan steps:
+	 * <pre>{@code
+	 * zoomIn.addActionListener(e -> pane.queueTransform(current -> pane.getViewSolver()
+	 *         .zoomTo(current, current.getScaleX() * 2, current.targetPointAtViewportCentre())));
+	 * }</pre>
+	 * A transform posted with {@link #postTransform(UnaryOperator)} for the same pulse is applied
+	 * first. Use {@link #getViewStateSnapshot()} to read the state back without a thread hop.
+	 *
+	 * @param transform receives the state on the FX application thread and returns the state to
+	 *                  continue with, or null to skip; must not be null
+	 */
+	public void queueTransform(UnaryOperator<ViewState> transform) {
+		commands.add(Objects.requireNonNull(transform));
+		mailboxTrigger.request();
+	}
+
+	/**
+	 * Returns the view state as of the last change; this method may be called from any thread
+	 * and never waits for the FX application thread. The state is recorded from primitives on
+	 * every change, so reading it is consistent: all fields are from the same change.
+	 * <p>
+	 * On the FX application thread, {@link #getViewState()} also reflects changes made in the
+	 * current pulse.
+	 *
+	 * @return the latest view state
+	 */
+	public ViewState getViewStateSnapshot() { return viewStates.read(); }
+
+	private void applyPostedTransform() {
+		ViewState current = getViewState();
+		ViewState state = current;
+		UnaryOperator<ViewState> posted = mailbox.take();
+		if (posted != null) {
+			ViewState next = posted.apply(state);
+			if (next != null) state = next;
+		}
+		// only drain what was queued so far, later commands request another pulse
+		for (int i = commands.size(); i > 0; i--) {
+			UnaryOperator<ViewState> command = commands.poll();
+			if (command == null) break;
+			ViewState next = command.apply(state);
+			if (next != null) state = next;
+		}
+		if (state == current) return;
+		double sx = state.getScaleX();
+		double sy = state.getScaleY();
+		double tx = state.getTranslateX();
+		double ty = state.getTranslateY();
+		// locked axes keep their scale about the viewport centre
+		if (lockScaleX.get() && sx != current.getScaleX()) {
+			double cx = getViewportWidth() / 2;
+			tx = cx - (cx - tx) / sx * current.getScaleX();
+			sx = current.getScaleX();
+		}
+		if (lockScaleY.get() && sy != current.getScaleY()) {
+			double cy = getViewportHeight() / 2;
+			ty = cy - (cy - ty) / sy * current.getScaleY();
+			sy = current.getScaleY();
+		}
+		// the zoom direction decides how FIT bounds the state, as in centreAt
+		commit(sx, sy, tx, ty, sx >= current.getScaleX() || sy >= current.getScaleY());
+	}
+
+	private void deliverViewDelta() {
+		Transformable transformable = target.get();
+		ViewState from = deliveredState;
+		ViewState to = getViewState();
+		deliveredState = transformable == null ? null : to;
+		if (transformable == null || from == null || from.equals(to)) return;
+		transformable.viewChanged(ViewDelta.between(from, to));
+	}
+
 	@Override
 	public void zoomTo(double scaleX,double scaleY, Point2D pivotOnTarget) {
 		fireAffineEvent(AffineEvent.CHANGE_STARTED);
@@ -363,8 +664,15 @@ public class GesturePane extends Control implements GesturePaneOps {
 	/**
 	 * Animate changes for all operations supported in {@link GesturePaneOps}.
 	 * <br>
-	 * Animations does not compose so starting an new animation while one is already running will
-	 * result in the first animation being stopped arbitrary for the second animation to start.
+	 * Use {@link GesturePaneOps#flyTo(Point2D, double)} or
+	 * {@link GesturePaneOps#zoomToRegion(Bounds)} to animate scale and translation together.
+	 * <br>
+	 * Animations are driven by the pulse and do not stop abruptly: starting a new animation while
+	 * one is already running retargets it, the new animation starts where the running one is and
+	 * continues with its current velocity. A retargeted animation does not run its
+	 * {@link AnimationEndBuilder#afterFinished(Runnable)} action and only one pair of
+	 * {@link AffineEvent#CHANGE_STARTED} and {@link AffineEvent#CHANGE_FINISHED} is fired for the
+	 * whole chain.
 	 * <br>
 	 * The method returns a type-safe builder that will limit access to only the available builder
 	 * methods, for example:
@@ -407,84 +715,104 @@ public class GesturePane extends Control implements GesturePaneOps {
 			@Override
 			public void centreOn(Point2D pointOnTarget) {
 				// find the delta between current centre and the point and then animate the delta
-				Point2D delta = pointOnTarget.subtract(targetPointAtViewportCentre());
-				translateBy(new Dimension2D(delta.getX(), delta.getY()));
+				animateTo(true, to -> {
+					Point2D delta = pointOnTarget.subtract(targetPointAtViewportCentre());
+					to[TransformAnimator.TX] -= delta.getX() * to[TransformAnimator.SX];
+					to[TransformAnimator.TY] -= delta.getY() * to[TransformAnimator.SY];
+				});
 			}
 
 			@Override
 			public void centreOnX(double pointOnTarget) {
-				// move to centre point and apply scale
-				double delta = pointOnTarget - targetPointAtViewportCentre().getX();
-				translateBy(new Dimension2D(delta, 0));
+				animateTo(true, to -> {
+					double delta = pointOnTarget - targetPointAtViewportCentre().getX();
+					to[TransformAnimator.TX] -= delta * to[TransformAnimator.SX];
+				});
 			}
 
 			@Override
 			public void centreOnY(double pointOnTarget) {
-				// move to centre point and apply scale
-				double delta = pointOnTarget - targetPointAtViewportCentre().getY();
-				translateBy(new Dimension2D(0, delta));
-			}
-
-			private void markStart() {
-				changing.set(true);
-				if (beforeStart != null) beforeStart.run();
-				fireAffineEvent(AffineEvent.CHANGE_STARTED);
-				inhibitPropEvent = true;
-				clampExternalScale = false;
+				animateTo(true, to -> {
+					double delta = pointOnTarget - targetPointAtViewportCentre().getY();
+					to[TransformAnimator.TY] -= delta * to[TransformAnimator.SY];
+				});
 			}
 
 			private void markEnd() {
-				inhibitPropEvent = false;
-				clampExternalScale = true;
 				fireAffineEvent(AffineEvent.CHANGE_FINISHED);
 				if (afterFinished != null) afterFinished.run();
 				changing.set(false);
 			}
 
+			/**
+			 * Computes the end state on the FX thread, starting from the current state, and
+			 * starts or retargets the animation towards it.
+			 */
+			private void animateTo(boolean zoomPositive, Consumer<double[]> target) {
+				animateTo(zoomPositive, target, false);
+			}
+
+			private void animateTo(boolean zoomPositive, Consumer<double[]> target, boolean fly) {
+				runLaterOrNowIfOnFXThread(() -> {
+					boolean retarget = animator.isRunning();
+					if (!retarget) changing.set(true);
+					if (beforeStart != null) beforeStart.run();
+					if (!retarget) fireAffineEvent(AffineEvent.CHANGE_STARTED);
+					double[] from = {scaleX.get(), scaleY.get(), affine.getTx(), affine.getTy()};
+					double[] to = from.clone();
+					target.accept(to);
+					TransformAnimator.Path path = fly && getViewportWidth() > 0 ?
+							new FlightPath(getViewportWidth(), getViewportHeight(), from, to) :
+							null;
+					animator.start(duration, interpolator, from, to, path,
+							(sx, sy, tx, ty) -> commit(sx, sy, tx, ty, zoomPositive),
+							this::markEnd, null);
+				});
+			}
+
+			@Override
+			public void flyTo(Point2D pointOnTarget, double scale) {
+				animateTo(false, to -> {
+					double sx = lockScaleX.get() ? to[TransformAnimator.SX] :
+							clamp(getMinScale(), getMaxScale(), scale);
+					double sy = lockScaleY.get() ? to[TransformAnimator.SY] :
+							clamp(getMinScale(), getMaxScale(), scale);
+					to[TransformAnimator.SX] = sx;
+					to[TransformAnimator.SY] = sy;
+					to[TransformAnimator.TX] = getViewportWidth() / 2 - pointOnTarget.getX() * sx;
+					to[TransformAnimator.TY] = getViewportHeight() / 2 - pointOnTarget.getY() * sy;
+				}, true);
+			}
+
+			@Override
+			public void zoomToRegion(Bounds targetRegion) {
+				flyTo(centreOf(targetRegion), scaleToFit(targetRegion));
+			}
+
 			@Override
 			public void translateBy(Dimension2D targetAmount) {
-				// target coordinate so we will be setting tx and ty manually(append) so manually
-				// scale the target amount first
-				double vx = -targetAmount.getWidth() * getCurrentScaleX();
-				double vy = -targetAmount.getHeight() * getCurrentScaleY();
-				double tx = affine.getTx(); // fixed point
-				double ty = affine.getTy(); // fixed point
-				markStart();
-				animateValue(duration, interpolator, v -> {
-					affine.setTx(tx + vx * v);
-					affine.setTy(ty + vy * v);
-					clampAtBound(true);
-				}, e -> markEnd());
+				// target coordinate so we scale the target amount first; origin is top left so we
+				// flip signs
+				animateTo(true, to -> {
+					to[TransformAnimator.TX] -= targetAmount.getWidth() * to[TransformAnimator.SX];
+					to[TransformAnimator.TY] -= targetAmount.getHeight() * to[TransformAnimator.SY];
+				});
 			}
 			@Override
-			public void zoomTo(double targetScaleX,double targetScaleY,  Point2D pivotOnTarget) {
-				double initialScaleX = scaleX.get(); // fixed point
-				double initialScaleY = scaleY.get(); // fixed point
-				double dsX = clamp(getMinScale(), getMaxScale(), targetScaleX) - initialScaleX; // delta
-				double dsY = clamp(getMinScale(), getMaxScale(), targetScaleY) - initialScaleY; // delta
-				Point2D pv = viewportPointAt(pivotOnTarget);
-				markStart();
-				animateValue(duration, interpolator, v -> {
-					// so, prependScale with pivot is:
-					// prependTranslate->prependScale->prependTranslate
-					// 1. prependTranslate
-					affine.setTx(affine.getTx() - pv.getX());
-					affine.setTy(affine.getTy() - pv.getY());
-					// 2. prependScale, but extract the coefficient to scale the translation first
-					double dssX = initialScaleX + dsX * v;
-					double dssY = initialScaleY + dsY * v;
-					double currentScaleX = scaleX.get();
-					double currentScaleY = scaleY.get();
-					affine.setTx(affine.getTx() * (dssX / currentScaleX));
-					affine.setTy(affine.getTy() * (dssY / currentScaleY));
-					scaleX.set(dssX);
-					scaleY.set(dssY);
-					// 3. prependTranslate
-					affine.setTx(affine.getTx() + pv.getX());
-					affine.setTy(affine.getTy() + pv.getY());
-					clampAtBound(false);
-					fireAffineEvent(AffineEvent.CHANGED);
-				}, e -> markEnd());
+			public void zoomTo(double targetScaleX, double targetScaleY, Point2D pivotOnTarget) {
+				animateTo(false, to -> {
+					// the pivot stays fixed in the viewport, so translation is linear in scale and
+					// interpolating both linearly keeps the pivot in place for every frame
+					Point2D pv = viewportPointAt(pivotOnTarget);
+					double sx = clamp(getMinScale(), getMaxScale(), targetScaleX);
+					double sy = clamp(getMinScale(), getMaxScale(), targetScaleY);
+					to[TransformAnimator.TX] = pv.getX() -
+							(pv.getX() - to[TransformAnimator.TX]) * (sx / to[TransformAnimator.SX]);
+					to[TransformAnimator.TY] = pv.getY() -
+							(pv.getY() - to[TransformAnimator.TY]) * (sy / to[TransformAnimator.SY]);
+					to[TransformAnimator.SX] = sx;
+					to[TransformAnimator.SY] = sy;
+				});
 			}
 
 			@Override
@@ -564,6 +892,123 @@ public class GesturePane extends Control implements GesturePaneOps {
 		zoomTo(getMinScale(), targetPointAtViewportCentre());
 	}
 
+	/**
+	 * Returns to the previous view in the history, see {@link #back(Duration)}.
+	 *
+	 * @return false if there is no previous view
+	 */
+	public boolean back() { return back(Duration.ZERO); }
+
+	/**
+	 * Returns to the previous view in the history.
+	 * <p>
+	 * The pane records the view at the start and at the end of every change (i.e. between
+	 * {@link AffineEvent#CHANGE_STARTED} and {@link AffineEvent#CHANGE_FINISHED}), up to
+	 * {@link #HISTORY_CAPACITY} views. Views that are close together are merged: changes in quick
+	 * succession such as scroll steps are recorded as one view, and changes too small to see are
+	 * not recorded. A view is restored by its scale and the target point at the viewport centre,
+	 * so it restores correctly after the viewport was resized. Like a browser history, a change
+	 * after going back discards the views ahead. An animated restore stops where it is when a
+	 * gesture starts, the gesture is then recorded like any other change.
+	 * <p>
+	 * Must be called on the FX application thread.
+	 *
+	 * @param duration the duration of the transition, {@link Duration#ZERO} applies the view as a
+	 *                 single change without animating
+	 * @return false if there is no previous view
+	 */
+	public boolean back(Duration duration) {
+		double[] view = new double[ViewHistory.SIZE];
+		if (!history.back(view)) return false;
+		restore(view, duration);
+		return true;
+	}
+
+	/**
+	 * Goes to the next view in the history, see {@link #forward(Duration)}.
+	 *
+	 * @return false if there is no next view
+	 */
+	public boolean forward() { return forward(Duration.ZERO); }
+
+	/**
+	 * Goes to the next view in the history, undoing {@link #back(Duration)}.
+	 *
+	 * @param duration the duration of the transition, {@link Duration#ZERO} applies the view as a
+	 *                 single change without animating
+	 * @return false if there is no next view
+	 */
+	public boolean forward(Duration duration) {
+		double[] view = new double[ViewHistory.SIZE];
+		if (!history.forward(view)) return false;
+		restore(view, duration);
+		return true;
+	}
+
+	/**
+	 * @return whether {@link #back(Duration)} has a previous view to go to
+	 */
+	public boolean canGoBack() { return history.canGoBack(); }
+
+	/**
+	 * @return whether {@link #forward(Duration)} has a next view to go to
+	 */
+	public boolean canGoForward() { return history.canGoForward(); }
+
+	/**
+	 * Discards all views recorded in the history.
+	 */
+	public void clearHistory() { history.clear(); }
+
+	private void restore(double[] view, Duration duration) {
+		double sx = lockScaleX.get() ? getCurrentScaleX() :
+				clamp(getMinScale(), getMaxScale(), view[ViewHistory.SX]);
+		double sy = lockScaleY.get() ? getCurrentScaleY() :
+				clamp(getMinScale(), getMaxScale(), view[ViewHistory.SY]);
+		double tx = getViewportWidth() / 2 - view[ViewHistory.CX] * sx;
+		double ty = getViewportHeight() / 2 - view[ViewHistory.CY] * sy;
+		boolean zoomPositive = sx >= getCurrentScaleX() || sy >= getCurrentScaleY();
+		if (duration.lessThanOrEqualTo(Duration.ZERO)) {
+			fireRestoreEvent(AffineEvent.CHANGE_STARTED);
+			commit(sx, sy, tx, ty, zoomPositive);
+			fireRestoreEvent(AffineEvent.CHANGE_FINISHED);
+			return;
+		}
+		boolean retarget = animator.isRunning();
+		if (!retarget) {
+			changing.set(true);
+			fireRestoreEvent(AffineEvent.CHANGE_STARTED);
+		}
+		double[] from = {scaleX.get(), scaleY.get(), affine.getTx(), affine.getTy()};
+		double[] to = {sx, sy, tx, ty};
+		Object animation = new Object();
+		restoreAnimation = animation;
+		animator.start(duration, Interpolator.EASE_BOTH, from, to, null,
+				(fsx, fsy, ftx, fty) -> commit(fsx, fsy, ftx, fty, zoomPositive),
+				() -> {
+					if (restoreAnimation == animation) restoreAnimation = null;
+					finishRestore();
+				},
+				() -> {
+					if (restoreAnimation == animation) restoreAnimation = null;
+				});
+	}
+
+	private void finishRestore() {
+		fireRestoreEvent(AffineEvent.CHANGE_FINISHED);
+		changing.set(false);
+	}
+
+	// fires an event of a restore, which the history does not record
+	private void fireRestoreEvent(EventType<AffineEvent> type) {
+		restoring = true;
+		try {
+			fireAffineEvent(type);
+		} finally {
+			restoring = false;
+		}
+	}
+
 	/**
 	 * Resets the scale to {@link #getMinScale()} and re-centres the content according to the
 	 * current {@link FitMode}.
@@ -618,99 +1063,94 @@ public class GesturePane extends Control implements GesturePaneOps {
 		});
 	}
 
+	/**
+	 * Sets the scale and moves the given target point to the viewport centre in one atomic
+	 * change. Locked axes keep their current scale and min/max scale is respected.
+	 */
+	final void centreAt(double scaleX, double scaleY, double targetX, double targetY) {
+		double sx = lockScaleX.get() ? getCurrentScaleX() :
+				clamp(getMinScale(), getMaxScale(), scaleX);
+		double sy = lockScaleY.get() ? getCurrentScaleY() :
+				clamp(getMinScale(), getMaxScale(), scaleY);
+		boolean zoomPositive = sx >= getCurrentScaleX() || sy >= getCurrentScaleY();
+		commit(sx, sy,
+				getViewportWidth() / 2 - targetX * sx,
+				getViewportHeight() / 2 - targetY * sy,
+				zoomPositive);
+	}
+
 	private static double clamp(double min, double max, double value) {
 		return Math.max(min, Math.min(max, value));
 	}
 
 	final void clampAtBound(boolean zoomPositive) {
-		double scaleX = getCurrentScaleX();
-		double scaleY = getCurrentScaleY();
-		double targetWidth = getTargetWidth();
-		double targetHeight = getTargetHeight();
-		double scaledWidth = scaleX * targetWidth;
-		double scaledHeight = scaleY * targetHeight;
-		double width = getViewportWidth();
-		double height = getViewportHeight();
-
-		// clamp translation
-		double minX = width - scaledWidth;
-		double minY = height - scaledHeight;
-
-		double tx = affine.getTx();
-		double ty = affine.getTy();
-		double tsX = scaleX;
-		double tsY = scaleY;
-
-		if (fitMode.get() != UNBOUNDED) {
-
-			tx = clamp(minX, 0, tx);
-			ty = clamp(minY, 0, ty);
-			if (width >= scaledWidth) tx = (width - scaleX * targetWidth) / 2;
-			if (height >= scaledHeight) ty = (height - scaleY * targetHeight) / 2;
-		}
+		double[] bound = new double[TransformAnimator.SIZE];
+		computeBound(getCurrentScaleX(), getCurrentScaleY(), affine.getTx(), affine.getTy(),
+				zoomPositive, bound);
+		// to prevent excessive affine events as we don't have access to the atomic change field 
+		affine.setTx(bound[TransformAnimator.TX]);
+		affine.setTy(bound[TransformAnimator.TY]);
+		this.scaleX.set(bound[TransformAnimator.SX]);
+		this.scaleY.set(bound[TransformAnimator.SY]);
+	}
 
-		// clamp scale
-		boolean validTarget = targetWidth > 0 && targetHeight > 0;
-		double coverScale = validTarget ? Math.max(width / targetWidth, height / targetHeight) : 1;
-		double fitScale   = validTarget ? Math.min(width / targetWidth, height / targetHeight) : 0;
-		switch (fitMode.get()) {
-			case COVER:
-				if (width >= scaledWidth || height >= scaledHeight)
-					tsX = tsY = coverScale;
-				break;
-			case COVER_FILL:
-				tsX = tsY = coverScale;
-				break;
-			case FIT:
-				if (!zoomPositive && scaleX <= fitScale) {
-					tx = (width - fitScale * targetWidth) / 2;
-					ty = (height - fitScale * targetHeight) / 2;
-					tsX = tsY = fitScale;
-				}
-				break;
-			case FIT_FILL:
-				tx = (width - fitScale * targetWidth) / 2;
-				ty = (height - fitScale * targetHeight) / 2;
-				tsX = tsY = fitScale;
-				break;
-			default:
-				break;
+	/**
+	 * Commits the given scale and translation, clamped like {@link #clampAtBound(boolean)}, as a
+	 * single change: the affine is written once, the skin updates the scrollbars and the target
+	 * viewport once and at most one {@link AffineEvent#CHANGED} is fired.
+	 */
+	final void commit(double scaleX, double scaleY, double tx, double ty, boolean zoomPositive) {
+		double[] bound = new double[TransformAnimator.SIZE];
+		computeBound(scaleX, scaleY, tx, ty, zoomPositive, bound);
+		boolean inhibit = inhibitPropEvent;
+		boolean clamp = clampExternalScale;
+		inhibitPropEvent = true;
+		clampExternalScale = false;
+		committing = true;
+		try {
+			affine.setToTransform(
+					bound[TransformAnimator.SX], 0, bound[TransformAnimator.TX],
+					0, bound[TransformAnimator.SY], bound[TransformAnimator.TY]);
+		} finally {
+			committing = false;
+			clampExternalScale = clamp;
+			inhibitPropEvent = inhibit;
 		}
+		onCommit.run();
+		if (!inhibit) fireAffineEvent(AffineEvent.CHANGED);
+	}
 
-		// If the scale changed (e.g. COVER/COVER_FILL on viewport resize), the translation was
-		// clamped against the old scale above and must be re-clamped against the new scale.
-		if (tsX != scaleX || tsY != scaleY) {
-			double newScaledWidth  = tsX * targetWidth;
-			double newScaledHeight = tsY * targetHeight;
-			tx = clamp(width - newScaledWidth, 0, tx);
-			ty = clamp(height - newScaledHeight, 0, ty);
-			if (width  >= newScaledWidth)  tx = (width  - newScaledWidth)  / 2;
-			if (height >= newScaledHeight) ty = (height - newScaledHeight) / 2;
-		}
+	private void computeBound(double scaleX, double scaleY, double tx, double ty,
+	                          boolean zoomPositive, double[] out) {
+		ViewSolver.bound(fitMode.get(),
+				getViewportWidth(), getViewportHeight(),
+				getTargetWidth(), getTargetHeight(),
+				scaleX, scaleY, tx, ty, zoomPositive, out);
+	}
 
-		// to prevent excessive affine events as we don't have access to the atomic change field 
-		affine.setTx(tx);
-		affine.setTy(ty);
-		this.scaleX.set(tsX);
-		this.scaleY.set(tsY);
-
-	}
-
-	private final Timeline timeline = new Timeline();
-	private void animateValue(Duration duration,
-	                          Interpolator interpolator, DoubleConsumer consumer,
-	                          EventHandler<ActionEvent> l) {
-		timeline.stop();
-		timeline.getKeyFrames().clear();
-		KeyValue keyValue = new KeyValue(new WritableValue<Double>() {
-			@Override public Double getValue() { return 0.0; }
-			@Override public void setValue(Double value) {
-				consumer.accept(value);
-			}
-		}, 1.0, interpolator == null ? Interpolator.LINEAR : interpolator);
-		timeline.getKeyFrames().add(new KeyFrame(duration, keyValue));
-		timeline.setOnFinished(l);
-		timeline.play();
+	private final TransformAnimator animator = new TransformAnimator();
+	private final Mailbox<UnaryOperator<ViewState>> mailbox = new Mailbox<>();
+	private final ConcurrentLinkedQueue<UnaryOperator<ViewState>> commands =
+			new ConcurrentLinkedQueue<>();
+	private final PulseTrigger mailboxTrigger = new PulseTrigger(this, this::applyPostedTransform);
+	private final ViewStatePublisher viewStates;
+	private final ViewHistory history = new ViewHistory(HISTORY_CAPACITY);
+	// set while the events of a restore are fired so that the view is not recorded again
+	private boolean restoring;
+	// identifies the animated restore that is running, null if none
+	private Object restoreAnimation;
+	private final PulseTrigger deltaTrigger = new PulseTrigger(this, this::deliverViewDelta);
+	// the view last handed to Transformable.viewChanged
+	private ViewState deliveredState;
+	private final OutputScaleTracker outputScale =
+			new OutputScaleTracker(this, this::onOutputScaleChanged);
+
+	private void onOutputScaleChanged() {
+		outputScaleX.set(outputScale.getX());
+		outputScaleY.set(outputScale.getY());
+		Transformable transformable = target.get();
+		if (transformable != null)
+			transformable.outputScaleChanged(outputScale.getX(), outputScale.getY());
 	}
 
 	private void atomicallyChange(Runnable e) {
@@ -864,6 +1304,33 @@ public class GesturePane extends Control implements GesturePaneOps {
 	public BooleanProperty invertScrollTranslateProperty() { return invertScrollTranslate; }
 	public void setInvertScrollTranslate(boolean invertScrollTranslate) { this.invertScrollTranslate.set(invertScrollTranslate); }
 
+	/**
+	 * Returns whether the view can be navigated with the keyboard while the pane has focus: arrow
+	 * keys pan, {@code +}/{@code -} zoom about the viewport centre, page up/down pan by a viewport
+	 * height and home calls {@link #cover()}. Held keys move the view at a constant speed, updated
+	 * once per frame regardless of the auto-repeat rate. Like other gestures, this only works when
+	 * {@link #isGestureEnabled()}. Defaults to false, as the keys are consumed and would
+	 * otherwise not reach focus traversal or the application's own key handlers.
+	 */
+	public boolean isKeyboardNavigationEnabled() { return keyboardNavigation.get(); }
+	public BooleanProperty keyboardNavigationEnabledProperty() { return keyboardNavigation; }
+	public void setKeyboardNavigationEnabled(boolean enable) { this.keyboardNavigation.set(enable); }
+
+	/**
+	 * Returns the scales zoom gestures settle on, or null (the default) to leave the scale
+	 * where a gesture ends.
+	 * <p>
+	 * With a ladder, a pinch, a touchpad zoom or a shortcut scroll zooms freely and then animates
+	 * to the nearest rung about the point it zoomed about once it finishes
+	 * ({@link AffineEvent#CHANGE_FINISHED}), over {@link #ZOOM_SNAP_DURATION}. A mouse wheel
+	 * notch in {@link ScrollMode#ZOOM} animates to the next rung instead. Programmatic changes
+	 * are not snapped. Rungs outside of [{@link #getMinScale()}, {@link #getMaxScale()}] are
+	 * clamped like any other scale.
+	 */
+	public ZoomLadder getZoomLadder() { return zoomLadder.get(); }
+	public ObjectProperty<ZoomLadder> zoomLadderProperty() { return zoomLadder; }
+	public void setZoomLadder(ZoomLadder ladder) { this.zoomLadder.set(ladder); }
+
 	/**
 	 * Returns whether scaling on the x-axis is locked.
 	 * When locked, zoom gestures and programmatic zoom have no effect on the x-axis scale.
@@ -917,6 +1384,35 @@ public class GesturePane extends Control implements GesturePaneOps {
 	public double getCurrentScaleX() { return scaleX.get(); }
 	public DoubleProperty currentScaleXProperty() { return scaleX; }
 
+	/**
+	 * Returns how many device pixels a unit of the pane's coordinates covers on the x-axis: the
+	 * render scale of the window the pane is shown in (e.g. 2 on a 200% screen), times any
+	 * scaling of the pane itself by its parents. Follows the window as it moves between screens,
+	 * 1 while the pane is not shown.
+	 */
+	public double getOutputScaleX() { return outputScaleX.get(); }
+	public ReadOnlyDoubleProperty outputScaleXProperty() { return outputScaleX; }
+
+	/**
+	 * Like {@link #getOutputScaleX()}, for the y-axis.
+	 */
+	public double getOutputScaleY() { return outputScaleY.get(); }
+	public ReadOnlyDoubleProperty outputScaleYProperty() { return outputScaleY; }
+
+	/**
+	 * Returns how many device pixels a unit of the target covers on the x-axis at the current
+	 * scale, i.e. {@link #getOutputScaleX()} times {@link #getCurrentScaleX()}. Content that
+	 * produces pixels renders at exactly device resolution by sizing its buffers with this.
+	 */
+	public double getDevicePixelsPerUnitX() { return devicePixelsPerUnitX.get(); }
+	public ReadOnlyDoubleProperty devicePixelsPerUnitXProperty() { return devicePixelsPerUnitX; }
+
+	/**
+	 * Like {@link #getDevicePixelsPerUnitX()}, for the y-axis.
+	 */
+	public double getDevicePixelsPerUnitY() { return devicePixelsPerUnitY.get(); }
+	public ReadOnlyDoubleProperty devicePixelsPerUnitYProperty() { return devicePixelsPerUnitY; }
+
 	/**
 	 * Returns the current y-axis scale factor. The initial value is 1.0 unless the active
 	 * {@link FitMode} computes a different scale on first layout.
@@ -1082,6 +1578,27 @@ public class GesturePane extends Control implements GesturePaneOps {
 		 * @param affine the transform to apply; never null
 		 */
 		default void setTransform(Affine affine) {}
+
+		/**
+		 * Called on the FX application thread at most once per pulse after the view changed,
+		 * with what changed since the previous call. Renderers may reuse the previous frame and
+		 * only render {@link ViewDelta#getExposedRegions()}. The first call after the target is
+		 * set describes the change from the view at that time, e.g. the initial layout.
+		 *
+		 * @param delta the change; never null
+		 */
+		default void viewChanged(ViewDelta delta) {}
+
+		/**
+		 * Called on the FX application thread when the target is set and whenever the output
+		 * scale of the pane changes, e.g. when its window moves to a screen with a different
+		 * scale. A target point covers {@code outputScale * scale} device pixels, where scale is
+		 * taken from the {@link Affine}; see {@link GesturePane#getDevicePixelsPerUnitX()}.
+		 *
+		 * @param outputScaleX device pixels per viewport unit on the x-axis
+		 * @param outputScaleY device pixels per viewport unit on the y-axis
+		 */
+		default void outputScaleChanged(double outputScaleX, double outputScaleY) {}
 	}
 
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package net.kurobako.gesturefx;
 
+import javafx.geometry.Bounds;
 import javafx.geometry.Dimension2D;
 import javafx.geometry.Point2D;
 import javafx.util.Duration;
@@ -38,6 +39,43 @@ public interface GesturePaneOps {
 	 */
 	void centreOnY(double pointOnTarget);
 
+	/**
+	 * Zooms to the given uniform scale and centres the given target point in the viewport as one
+	 * change. The scale is clamped to the range [{@link GesturePane#getMinScale()},
+	 * {@link GesturePane#getMaxScale()}] and locked axes keep their scale; the effective result is
+	 * bounded by the active {@link GesturePane.FitMode}.
+	 * <p>
+	 * When animated, scale and translation are interpolated together in a single animation. If the
+	 * point is further than one viewport width away, the animation follows a smooth zoom-out, pan,
+	 * zoom-in path (van Wijk and Nuij) so that long distance moves stay easy to follow.
+	 * <p>
+	 * The default implementation zooms about the point with {@link #zoomTo(double, Point2D)} and
+	 * then centres on it with {@link #centreOn(Point2D)}, as two changes.
+	 *
+	 * @param pointOnTarget the point to centre on, in target coordinates
+	 * @param scale         the target scale
+	 */
+	default void flyTo(Point2D pointOnTarget, double scale) {
+		zoomTo(scale, pointOnTarget);
+		centreOn(pointOnTarget);
+	}
+
+	/**
+	 * Zooms and centres the view so that the given region of the target fits the viewport, as
+	 * one change. This is {@link #flyTo(Point2D, double)} with the centre of the region and the
+	 * largest uniform scale at which the whole region is visible.
+	 * <p>
+	 * The scale depends on the viewport, which this interface does not know, so the default
+	 * implementation throws {@link UnsupportedOperationException}; {@link GesturePane} and its
+	 * animation builders implement it.
+	 *
+	 * @param targetRegion the region to show, in target coordinates
+	 * @throws UnsupportedOperationException if the implementation cannot fit a region
+	 */
+	default void zoomToRegion(Bounds targetRegion) {
+		throw new UnsupportedOperationException("zoomToRegion");
+	}
+
 	/**
 	 * Translates the view by the given amount in target coordinates.
 	 * The effective result is bounded by the active {@link GesturePane.FitMode}.
@@ -0,0 +1,205 @@
+package net.kurobako.gesturefx;
+
+import java.util.Objects;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.NonInvertibleTransformException;
+
+/**
+ * An overview (minimap) of a {@link GesturePane}: a downscaled thumbnail of the whole target with
+ * a rectangle marking the area currently visible in the pane.
+ * <p>
+ * For {@link GesturePane#setContent(Node) node content}, the thumbnail is a snapshot of the
+ * content rendered once at the size of this overview. The snapshot is only re-rendered when the
+ * content node is replaced, its layout bounds change, this overview grows past the snapshot
+ * resolution, or {@link #refresh()} is called; pan and zoom changes only move the viewport
+ * rectangle. For {@link GesturePane.Transformable} targets there is nothing to snapshot, so supply
+ * a thumbnail via {@link #setImage(Image)} instead.
+ * <p>
+ * Pressing or dragging on the overview centres the pane on the corresponding target point via
+ * {@link GesturePane#centreOn(Point2D)}.
+ * <p>
+ * The thumbnail and viewport rectangle have the style classes {@code thumbnail} and
+ * {@code viewport} respectively.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class GesturePaneOverview extends Region {
+
+	private static final String DEFAULT_STYLE_CLASS = "gesture-pane-overview";
+	public static final double DEFAULT_PREF_SIZE = 160;
+
+	private final GesturePane pane;
+	private final ImageView thumbnail = new ImageView();
+	private final Rectangle viewport = new Rectangle();
+	private final ObjectProperty<Image> image = new SimpleObjectProperty<>();
+	private final PulseTrigger snapshotTrigger;
+
+	private WritableImage snapshot;
+	private double snapshotScale = 0;
+
+	// layout of the thumbnail, target coordinate -> overview coordinate
+	private double scale = 0;
+	private double offsetX = 0;
+	private double offsetY = 0;
+
+	/**
+	 * Creates an overview for the given pane.
+	 *
+	 * @param pane the pane to show an overview of; must not be null
+	 */
+	@SuppressWarnings("this-escape")
+	public GesturePaneOverview(GesturePane pane) {
+		this.pane = Objects.requireNonNull(pane);
+		getStyleClass().setAll(DEFAULT_STYLE_CLASS);
+		thumbnail.getStyleClass().setAll("thumbnail");
+		thumbnail.setPreserveRatio(false);
+		thumbnail.setManaged(false);
+		viewport.getStyleClass().setAll("viewport");
+		viewport.setManaged(false);
+		viewport.setStroke(Color.WHITE);
+		viewport.setStrokeWidth(1);
+		viewport.setFill(Color.grayRgb(255, 0.25));
+		getChildren().addAll(thumbnail, viewport);
+
+		snapshotTrigger = new PulseTrigger(this, this::renderSnapshot);
+
+		InvalidationListener contentBoundsListener = o -> invalidateSnapshot();
+		ChangeListener<Node> contentListener = (o, p, n) -> {
+			if (p != null) p.layoutBoundsProperty().removeListener(contentBoundsListener);
+			if (n != null) n.layoutBoundsProperty().addListener(contentBoundsListener);
+			invalidateSnapshot();
+		};
+		pane.contentProperty().addListener(contentListener);
+		contentListener.changed(pane.contentProperty(), null, pane.getContent());
+		pane.targetProperty().addListener(o -> requestLayout());
+		image.addListener(o -> {
+			thumbnail.setViewport(null);
+			thumbnail.setImage(image.get() != null ? image.get() : snapshot);
+			invalidateSnapshot();
+		});
+		// the rectangle is the only thing that moves while the pane is being transformed
+		pane.targetViewportProperty().addListener((o, p, n) -> updateViewport(n));
+
+		addEventHandler(MouseEvent.MOUSE_PRESSED, this::navigate);
+		addEventHandler(MouseEvent.MOUSE_DRAGGED, this::navigate);
+	}
+
+	/**
+	 * Discards the cached snapshot and renders the content again on the next pulse. Call this
+	 * when the content's appearance changed without its layout bounds changing.
+	 */
+	public void refresh() { invalidateSnapshot(); }
+
+	/**
+	 * Returns the user supplied thumbnail, or {@code null} if the content snapshot is used.
+	 * The image is stretched to the target's aspect ratio.
+	 */
+	public Image getImage() { return image.get(); }
+	public ObjectProperty<Image> imageProperty() { return image; }
+	public void setImage(Image image) { this.image.set(image); }
+
+	/** Returns the pane this overview is attached to. */
+	public GesturePane getPane() { return pane; }
+
+	private void invalidateSnapshot() {
+		snapshotScale = 0;
+		requestLayout();
+		snapshotTrigger.request();
+	}
+
+	private void navigate(MouseEvent e) {
+		e.consume();
+		if (scale <= 0) return;
+		double x = Math.max(0, Math.min(pane.getTargetWidth(), (e.getX() - offsetX) / scale));
+		double y = Math.max(0, Math.min(pane.getTargetHeight(), (e.getY() - offsetY) / scale));
+		pane.centreOn(new Point2D(x, y));
+	}
+
+	private void updateViewport(Bounds bounds) {
+		if (scale <= 0 || bounds == null) return;
+		viewport.setX(offsetX + bounds.getMinX() * scale);
+		viewport.setY(offsetY + bounds.getMinY() * scale);
+		viewport.setWidth(bounds.getWidth() * scale);
+		viewport.setHeight(bounds.getHeight() * scale);
+	}
+
+	private void renderSnapshot() {
+		Node content = pane.getContent();
+		if (image.get() != null || content == null || scale <= 0) return;
+		int width = (int) Math.ceil(pane.getTargetWidth() * scale);
+		int height = (int) Math.ceil(pane.getTargetHeight() * scale);
+		if (width <= 0 || height <= 0) return;
+		// undo the content's own transforms (which includes the pane's affine) so that the
+		// snapshot is always the untransformed content at the thumbnail scale
+		Affine transform = new Affine();
+		transform.appendScale(scale, scale);
+		try {
+			transform.append(content.getLocalToParentTransform().createInverse());
+		} catch (NonInvertibleTransformException e) {
+			return;
+		}
+		SnapshotParameters parameters = new SnapshotParameters();
+		parameters.setFill(Color.TRANSPARENT);
+		parameters.setTransform(transform);
+		parameters.setViewport(new Rectangle2D(0, 0, width, height));
+		boolean reuse = snapshot != null &&
+				snapshot.getWidth() >= width && snapshot.getHeight() >= height;
+		snapshot = content.snapshot(parameters, reuse ? snapshot : null);
+		snapshotScale = scale;
+		thumbnail.setViewport(new Rectangle2D(0, 0, width, height));
+		thumbnail.setImage(snapshot);
+	}
+
+	@Override
+	protected double computePrefWidth(double height) {
+		return snappedLeftInset() + DEFAULT_PREF_SIZE + snappedRightInset();
+	}
+
+	@Override
+	protected double computePrefHeight(double width) {
+		return snappedTopInset() + DEFAULT_PREF_SIZE + snappedBottomInset();
+	}
+
+	@Override
+	protected void layoutChildren() {
+		double targetWidth = pane.getTargetWidth();
+		double targetHeight = pane.getTargetHeight();
+		double left = snappedLeftInset();
+		double top = snappedTopInset();
+		double width = getWidth() - left - snappedRightInset();
+		double height = getHeight() - top - snappedBottomInset();
+		if (targetWidth <= 0 || targetHeight <= 0 || width <= 0 || height <= 0) {
+			scale = 0;
+			thumbnail.setVisible(false);
+			viewport.setVisible(false);
+			return;
+		}
+		scale = Math.min(width / targetWidth, height / targetHeight);
+		offsetX = left + (width - targetWidth * scale) / 2;
+		offsetY = top + (height - targetHeight * scale) / 2;
+		thumbnail.relocate(offsetX, offsetY);
+		thumbnail.setFitWidth(targetWidth * scale);
+		thumbnail.setFitHeight(targetHeight * scale);
+		thumbnail.setVisible(true);
+		viewport.setVisible(true);
+		updateViewport(pane.getTargetViewport());
+		// only re-render if we would otherwise upscale the existing snapshot
+		if (image.get() == null && scale > snapshotScale) snapshotTrigger.request();
+	}
+}
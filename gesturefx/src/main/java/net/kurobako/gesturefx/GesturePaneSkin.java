@@ -7,6 +7,7 @@ import java.util.Arrays;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import javafx.animation.Interpolator;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.BooleanBinding;
 import javafx.beans.binding.DoubleBinding;
@@ -62,6 +63,11 @@ final class GesturePaneSkin extends SkinBase<GesturePane> {
 
 	private boolean hbarDown = false;
 	private boolean vbarDown = false;
+	// set while the skin writes a scrollbar value, as opposed to the user dragging it
+	private boolean syncingBar = false;
+	private boolean hbarMoved = false;
+	private boolean vbarMoved = false;
+	private final PulseTrigger scrollBarTrigger;
 
 	private final GesturePane pane;
 	private final Affine affine;
@@ -133,24 +139,31 @@ final class GesturePaneSkin extends SkinBase<GesturePane> {
 		vbar.setMax(0);
 		hbar.setMax(0);
 
-		// bind scrollbars to translation
-		Runnable setHbarX = () -> hbar.setValue(hbar.getMin() - affine.getTx());
-		Runnable setVbarY = () -> vbar.setValue(vbar.getMin() - affine.getTy());
+		// bind scrollbars to translation, deferred while the pane commits a transform; values
+		// written here are ignored by the value listeners below, so nothing bounces back
+		Runnable setHbarX = () -> {
+			if (!pane.committing) syncBar(hbar, hbar.getMin() - affine.getTx());
+		};
+		Runnable setVbarY = () -> {
+			if (!pane.committing) syncBar(vbar, vbar.getMin() - affine.getTy());
+		};
 		vbar.minProperty().bind(scaledHeight.subtract(pane.heightProperty()).add(hbarHeight).negate());
 		hbar.minProperty().bind(scaledWidth.subtract(pane.widthProperty()).add(vbarWidth).negate());
 		hbar.minProperty().addListener(o -> setHbarX.run());
 		vbar.minProperty().addListener(o -> setVbarY.run());
 		affine.txProperty().addListener(o -> setHbarX.run());
 		affine.tyProperty().addListener(o -> setVbarY.run());
+		// a dragged scrollbar is applied like any other gesture, once per pulse
+		scrollBarTrigger = new PulseTrigger(pane, this::commitScrollBars);
 		hbar.valueProperty().addListener(o -> {
-			if (!hbarDown) return;
-			affine.setTx(hbar.getMin() - hbar.getValue());
-			markChanged();
+			if (!hbarDown || syncingBar) return;
+			hbarMoved = true;
+			scrollBarTrigger.request();
 		});
 		vbar.valueProperty().addListener(o -> {
-			if (!vbarDown) return;
-			affine.setTy(vbar.getMin() - vbar.getValue());
-			markChanged();
+			if (!vbarDown || syncingBar) return;
+			vbarMoved = true;
+			scrollBarTrigger.request();
 		});
 
 		// (barMax - barMin) * (bound/targetBound)
@@ -162,8 +175,16 @@ final class GesturePaneSkin extends SkinBase<GesturePane> {
 		// fire start and finish events for scrollbars
 		hbar.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {hbarDown = true; markStart();});
 		vbar.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {vbarDown = true; markStart();});
-		hbar.addEventFilter(MouseEvent.MOUSE_RELEASED, e -> {hbarDown = false; markEnd();});
-		vbar.addEventFilter(MouseEvent.MOUSE_RELEASED, e -> {vbarDown = false; markEnd();});
+		hbar.addEventFilter(MouseEvent.MOUSE_RELEASED, e -> {
+			scrollBarTrigger.fire();
+			hbarDown = false;
+			markEnd();
+		});
+		vbar.addEventFilter(MouseEvent.MOUSE_RELEASED, e -> {
+			scrollBarTrigger.fire();
+			vbarDown = false;
+			markEnd();
+		});
 
 		// bind viewport to target dimension
 		Arrays.asList(
@@ -181,19 +202,26 @@ final class GesturePaneSkin extends SkinBase<GesturePane> {
 		}));
 
 		// bind affine/bound changes to viewport
-		Arrays.asList(pane.viewport,
-				pane.affine.txProperty(),
-				pane.affine.tyProperty(),
-				pane.scaleX, pane.scaleY).forEach(p -> p.addListener(o -> {
+		Runnable updateTargetRect = () -> {
+			if (pane.committing) return;
 			double scaleX = pane.scaleX.get();
 			double scaleY = pane.scaleY.get();
-
-
 			pane.targetRect.set(new BoundingBox(-affine.getTx() / scaleX,
 					-affine.getTy() / scaleY,
 					pane.getViewportWidth() / scaleX,
 					pane.getViewportHeight() / scaleY));
-		}));
+		};
+		Arrays.asList(pane.viewport,
+				pane.affine.txProperty(),
+				pane.affine.tyProperty(),
+				pane.scaleX, pane.scaleY).forEach(p -> p.addListener(o -> updateTargetRect.run()));
+
+		// a committed transform changes all of the above at once, update them in one go instead
+		pane.onCommit = () -> {
+			setHbarX.run();
+			setVbarY.run();
+			updateTargetRect.run();
+		};
 
 		pane.fitWidth.addListener(o -> pane.requestLayout());
 		pane.fitHeight.addListener(o -> pane.requestLayout());
@@ -213,6 +241,11 @@ final class GesturePaneSkin extends SkinBase<GesturePane> {
 	}
 
 	private Point2D lastPosition;
+	private KeyboardNavigator keyboard;
+	// the viewport point the current change last zoomed about, null if it did not zoom
+	private Point2D zoomPivot;
+	// the rung a wheel step is animating to, NaN if none
+	private double zoomRung = Double.NaN;
 
 	private void markStart() {
 		// XXX windows might give us mouse + scroll events if using touchscreen
@@ -221,12 +254,43 @@ final class GesturePaneSkin extends SkinBase<GesturePane> {
 		pane.changing.set(true);
 		pane.fireAffineEvent(CHANGE_STARTED);
 	}
-	private void markChanged() { pane.fireAffineEvent(CHANGED); }
 	private void markEnd() {
 		// XXX windows might give us mouse + scroll events if using touchscreen
 		if (!pane.isChanging()) return;
 		pane.fireAffineEvent(CHANGE_FINISHED);
 		pane.changing.set(false);
+		settleZoom();
+	}
+
+	// settles the scale of a zoom gesture onto the nearest rung of the zoom ladder, if any
+	private void settleZoom() {
+		Point2D pivot = zoomPivot;
+		zoomPivot = null;
+		ZoomLadder ladder = pane.zoomLadder.get();
+		if (pivot == null || ladder == null) return;
+		double rung = ladder.nearest(pane.getCurrentScaleX());
+		if (rung != pane.getCurrentScaleX()) animateToRung(rung, pivot);
+	}
+
+	// a discrete zoom step goes to the next rung instead, counting from where a previous step
+	// is still heading
+	private boolean stepZoom(boolean in, Point2D pivot) {
+		ZoomLadder ladder = pane.zoomLadder.get();
+		if (ladder == null || (pane.isChanging() && Double.isNaN(zoomRung))) return false;
+		double from = Double.isNaN(zoomRung) ? pane.getCurrentScaleX() : zoomRung;
+		animateToRung(in ? ladder.higher(from) : ladder.lower(from), pivot);
+		return true;
+	}
+
+	private void animateToRung(double rung, Point2D pivot) {
+		pane.targetPointAt(pivot).ifPresent(p -> {
+			zoomRung = rung;
+			pane.animate(GesturePane.ZOOM_SNAP_DURATION)
+					.interpolateWith(Interpolator.EASE_OUT)
+					.afterFinished(() -> zoomRung = Double.NaN)
+					.zoomTo(pane.lockScaleX.get() ? pane.getCurrentScaleX() : rung,
+							pane.lockScaleY.get() ? pane.getCurrentScaleY() : rung, p);
+		});
 	}
 
 	private void setupGestures() {
@@ -257,7 +321,10 @@ final class GesturePaneSkin extends SkinBase<GesturePane> {
 		pane.addEventHandler(ZoomEvent.ZOOM_FINISHED,
 				consumeThenFireIfEnabled(e -> markEnd()));
 		pane.addEventHandler(ZoomEvent.ZOOM,
-				consumeThenFireIfEnabled(e -> pane.scale(e.getZoomFactor(),e.getZoomFactor(), fromGesture(e))));
+				consumeThenFireIfEnabled(e -> {
+					zoomPivot = fromGesture(e);
+					pane.scale(e.getZoomFactor(),e.getZoomFactor(), zoomPivot);
+				}));
 
 		// translate+zoom via mouse/touchpad
 		pane.addEventHandler(ScrollEvent.SCROLL_STARTED, consumeThenFireIfEnabled(e -> {
@@ -268,8 +335,10 @@ final class GesturePaneSkin extends SkinBase<GesturePane> {
 			cache(false);
 			markEnd();
 		}));
+		// pan+zoom via keyboard, ends its own change once all keys are released
+		keyboard = new KeyboardNavigator(pane, this::markStart, this::markEnd);
 		pane.addEventHandler(KeyEvent.KEY_RELEASED, e -> {
-			if ((!e.isShortcutDown() && pane.isChanging())) markEnd();
+			if ((!e.isShortcutDown() && pane.isChanging() && !keyboard.isActive())) markEnd();
 		});
 		pane.addEventHandler(ScrollEvent.SCROLL, consumeThenFireIfEnabled(e -> {
 			// mouse scroll events only
@@ -284,14 +353,18 @@ final class GesturePaneSkin extends SkinBase<GesturePane> {
 				if (!pane.isChanging()) markStart();
 				double zoomFactor = DEFAULT_SCROLL_FACTOR * pane.scrollZoomFactor.get();
 				if (e.getDeltaY() < 0) zoomFactor *= -1;
-				pane.scale(1 + zoomFactor, fromGesture(e));
+				zoomPivot = fromGesture(e);
+				pane.scale(1 + zoomFactor, zoomPivot);
 				return;
 			}
 			switch (pane.scrollMode.get()) {
 				case ZOOM:
+					// a mouse wheel notch, outside of a touchpad scroll
+					if (stepZoom(e.getDeltaY() >= 0, fromGesture(e))) break;
+					zoomPivot = fromGesture(e);
 					double zoomFactor = DEFAULT_SCROLL_FACTOR * pane.scrollZoomFactor.get();
 					if (e.getDeltaY() < 0) zoomFactor *= -1;
-					pane.scale(1 + zoomFactor, fromGesture(e));
+					pane.scale(1 + zoomFactor, zoomPivot);
 					break;
 				case PAN:
 					boolean invert = pane.invertScrollTranslate.get();
@@ -303,6 +376,24 @@ final class GesturePaneSkin extends SkinBase<GesturePane> {
 		}));
 	}
 
+	private void syncBar(ScrollBar bar, double value) {
+		syncingBar = true;
+		try {
+			bar.setValue(value);
+		} finally {
+			syncingBar = false;
+		}
+	}
+
+	// applies the latest position of the dragged scrollbars as a single change
+	private void commitScrollBars() {
+		double tx = hbarMoved ? hbar.getMin() - hbar.getValue() : affine.getTx();
+		double ty = vbarMoved ? vbar.getMin() - vbar.getValue() : affine.getTy();
+		hbarMoved = false;
+		vbarMoved = false;
+		pane.commit(pane.getCurrentScaleX(), pane.getCurrentScaleY(), tx, ty, false);
+	}
+
 	private void cache(boolean enable) {
 		pane.setCacheHint(enable ? CacheHint.SPEED : CacheHint.QUALITY);
 	}
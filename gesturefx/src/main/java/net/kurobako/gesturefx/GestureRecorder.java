@@ -0,0 +1,146 @@
+package net.kurobako.gesturefx;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+import javafx.event.EventHandler;
+import javafx.event.EventType;
+import javafx.scene.input.InputEvent;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.input.ZoomEvent;
+
+/**
+ * Records the input a {@link GesturePane} receives into a compact binary {@link GestureLog},
+ * which can be replayed later against a pane with the same content, for example to reproduce
+ * stutter reported from production or to compare the cost of gestures between versions.
+ * <pre>{@code
+ * GestureRecorder recorder = new GestureRecorder();
+ * recorder.attach(pane);
+ * // ... later
+ * Files.write(path, recorder.toLog().toByteArray());
+ * }</pre>
+ * The mouse press/release/drag/click, scroll, zoom and key events the pane receives are
+ * recorded together with the time since the previous event, in 12 to 30 bytes each. Recording
+ * allocates nothing per event apart from growing the buffer, which doubles in size when full;
+ * the log grows until {@link #clear()} is called.
+ * <p>
+ * Positions are recorded in pane coordinates as floats. Mouse movement without a pressed
+ * button, enter/exit events and touch points are not recorded as the pane does not react to
+ * them. The target of an event is not recorded either: a log is always replayed at the pane
+ * itself, so input that went to the pane's scroll bars is replayed as a gesture on the pane
+ * rather than as a scroll bar drag. Hide the scroll bars while recording if that matters.
+ */
+@SuppressWarnings("unused")
+public final class GestureRecorder {
+
+	static final int INITIAL_CAPACITY = 4096;
+	// the largest record, a zoom event
+	static final int MAX_RECORD = 30;
+
+	private final EventHandler<InputEvent> filter = this::record;
+
+	private GesturePane pane;
+	private ByteBuffer buffer = newBuffer(INITIAL_CAPACITY);
+	private long lastNanos = -1;
+	private int events;
+
+	/**
+	 * Records the input of the given pane from now on, appending to what was recorded before. A
+	 * recorder can only be attached to one pane at a time.
+	 *
+	 * @param pane the pane; must not be null
+	 */
+	public void attach(GesturePane pane) {
+		detach();
+		this.pane = Objects.requireNonNull(pane);
+		for (EventType<? extends InputEvent> type : GestureLog.TYPES)
+			pane.addEventFilter(type, filter);
+	}
+
+	/**
+	 * Stops recording the attached pane, if any; what was recorded so far is kept.
+	 */
+	public void detach() {
+		if (pane == null) return;
+		for (EventType<? extends InputEvent> type : GestureLog.TYPES)
+			pane.removeEventFilter(type, filter);
+		pane = null;
+		// the time spent detached is not part of the recording
+		lastNanos = -1;
+	}
+
+	/**
+	 * Discards everything recorded so far.
+	 */
+	public void clear() {
+		buffer = newBuffer(INITIAL_CAPACITY);
+		lastNanos = -1;
+		events = 0;
+	}
+
+	/**
+	 * @return the number of events recorded
+	 */
+	public int getEventCount() { return events; }
+
+	/**
+	 * @return a log of everything recorded so far, later events are not added to it
+	 */
+	public GestureLog toLog() {
+		return new GestureLog(Arrays.copyOf(buffer.array(), buffer.position()), events);
+	}
+
+	private static ByteBuffer newBuffer(int capacity) {
+		ByteBuffer buffer = ByteBuffer.allocate(capacity);
+		buffer.putInt(GestureLog.MAGIC).put(GestureLog.VERSION);
+		return buffer;
+	}
+
+	private void record(InputEvent event) {
+		int type = GestureLog.TYPES.indexOf(event.getEventType());
+		if (type < 0) return;
+		if (buffer.remaining() < MAX_RECORD) {
+			ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+			buffer.flip();
+			grown.put(buffer);
+			buffer = grown;
+		}
+		long now = System.nanoTime();
+		long micros = lastNanos < 0 ? 0 : (now - lastNanos) / 1000;
+		lastNanos = now;
+		buffer.put((byte) type).putInt((int) Math.min(Integer.MAX_VALUE, micros));
+		if (event instanceof MouseEvent) {
+			MouseEvent e = (MouseEvent) event;
+			buffer.put(GestureLog.flags(e.isShiftDown(), e.isControlDown(), e.isAltDown(),
+					e.isMetaDown(), e.isPrimaryButtonDown(), e.isMiddleButtonDown(),
+					e.isSecondaryButtonDown()))
+					.putFloat((float) e.getX()).putFloat((float) e.getY())
+					.put((byte) e.getButton().ordinal())
+					.put((byte) Math.min(Byte.MAX_VALUE, e.getClickCount()));
+		} else if (event instanceof ScrollEvent) {
+			ScrollEvent e = (ScrollEvent) event;
+			buffer.put(GestureLog.flags(e.isShiftDown(), e.isControlDown(), e.isAltDown(),
+					e.isMetaDown(), e.isDirect(), e.isInertia(), false))
+					.putFloat((float) e.getX()).putFloat((float) e.getY())
+					.putFloat((float) e.getDeltaX()).putFloat((float) e.getDeltaY())
+					.put((byte) Math.min(Byte.MAX_VALUE, e.getTouchCount()));
+		} else if (event instanceof ZoomEvent) {
+			ZoomEvent e = (ZoomEvent) event;
+			buffer.put(GestureLog.flags(e.isShiftDown(), e.isControlDown(), e.isAltDown(),
+					e.isMetaDown(), e.isDirect(), e.isInertia(), false))
+					.putFloat((float) e.getX()).putFloat((float) e.getY())
+					.putDouble(e.getZoomFactor()).putDouble(e.getTotalZoomFactor());
+		} else {
+			KeyEvent e = (KeyEvent) event;
+			String text = e.getEventType() == KeyEvent.KEY_TYPED ? e.getCharacter() : e.getText();
+			buffer.put(GestureLog.flags(e.isShiftDown(), e.isControlDown(), e.isAltDown(),
+					e.isMetaDown(), false, false, false))
+					.putInt(e.getCode().getCode())
+					.putChar(text.isEmpty() ? 0 : text.charAt(0));
+		}
+		events++;
+	}
+}
@@ -0,0 +1,147 @@
+package net.kurobako.gesturefx;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+
+/**
+ * Private API
+ * <br>
+ * Keyboard navigation for the {@link GesturePane}: arrow keys pan, {@code +}/{@code -} zoom
+ * about the viewport centre, page up/down pan by a viewport height and home calls
+ * {@link GesturePane#cover()}.
+ * <p>
+ * A held key moves the view at a constant velocity, advanced once per pulse by the time since
+ * the previous pulse, so the motion is equally smooth at any auto-repeat rate and auto-repeated
+ * presses cost nothing but a lookup. Page presses, which are discrete, are counted and applied
+ * together on the next pulse. All keys held at the same time are applied as a single change per
+ * pulse.
+ */
+final class KeyboardNavigator {
+
+	// viewport pixels per second
+	static final double PAN_SPEED = 600;
+	// the factor the scale changes by per second
+	static final double ZOOM_RATE = 2;
+
+	private final GesturePane pane;
+	private final Runnable onStart;
+	private final Runnable onEnd;
+	private final Set<KeyCode> held = EnumSet.noneOf(KeyCode.class);
+	private final AnimationTimer timer = new AnimationTimer() {
+		@Override
+		public void handle(long now) { step(now); }
+	};
+
+	private boolean running;
+	private long lastNanos = -1;
+	private int pages;
+
+	KeyboardNavigator(GesturePane pane, Runnable onStart, Runnable onEnd) {
+		this.pane = pane;
+		this.onStart = onStart;
+		this.onEnd = onEnd;
+		pane.addEventHandler(KeyEvent.KEY_PRESSED, this::pressed);
+		pane.addEventHandler(KeyEvent.KEY_RELEASED, this::released);
+		// releases are not delivered once focus is lost
+		pane.focusedProperty().addListener((o, p, n) -> {
+			if (!n) stop();
+		});
+	}
+
+	/**
+	 * @return whether keys are held or pages are pending
+	 */
+	boolean isActive() { return running; }
+
+	private static boolean isNavigationKey(KeyCode code) {
+		switch (code) {
+			case LEFT: case RIGHT: case UP: case DOWN:
+			case KP_LEFT: case KP_RIGHT: case KP_UP: case KP_DOWN:
+			case PLUS: case EQUALS: case ADD: case MINUS: case SUBTRACT:
+			case PAGE_UP: case PAGE_DOWN: case HOME:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private void pressed(KeyEvent e) {
+		if (!pane.keyboardNavigation.get() || !pane.gestureEnabled.get()) return;
+		// leave shortcuts to the application
+		if (e.isShortcutDown() || e.isAltDown() || !isNavigationKey(e.getCode())) return;
+		e.consume();
+		KeyCode code = e.getCode();
+		if (code == KeyCode.HOME) {
+			if (!running) pane.cover();
+			return;
+		}
+		if (code == KeyCode.PAGE_UP) pages--;
+		else if (code == KeyCode.PAGE_DOWN) pages++;
+		// auto-repeated presses of a held key end here
+		else if (!held.add(code)) return;
+		start();
+	}
+
+	private void released(KeyEvent e) {
+		if (held.remove(e.getCode())) e.consume();
+	}
+
+	private void start() {
+		if (running) return;
+		running = true;
+		lastNanos = -1;
+		onStart.run();
+		timer.start();
+	}
+
+	private void stop() {
+		held.clear();
+		pages = 0;
+		if (!running) return;
+		running = false;
+		timer.stop();
+		onEnd.run();
+	}
+
+	private double bound(double scale) {
+		return Math.max(pane.getMinScale(), Math.min(pane.getMaxScale(), scale));
+	}
+
+	private void step(long now) {
+		double seconds = lastNanos < 0 ? 0 : (now - lastNanos) / 1e9;
+		lastNanos = now;
+		double dx = 0, dy = 0, zoom = 0;
+		for (KeyCode code : held) {
+			switch (code) {
+				case LEFT: case KP_LEFT: dx++; break;
+				case RIGHT: case KP_RIGHT: dx--; break;
+				case UP: case KP_UP: dy++; break;
+				case DOWN: case KP_DOWN: dy--; break;
+				case PLUS: case EQUALS: case ADD: zoom++; break;
+				case MINUS: case SUBTRACT: zoom--; break;
+			}
+		}
+		double translateX = dx * PAN_SPEED * seconds;
+		double translateY = dy * PAN_SPEED * seconds - pages * pane.getViewportHeight();
+		pages = 0;
+		double factor = Math.pow(ZOOM_RATE, zoom * seconds);
+		if (factor != 1 || translateX != 0 || translateY != 0) {
+			// zoom about the viewport centre, then pan, as one change
+			double sx = pane.getCurrentScaleX();
+			double sy = pane.getCurrentScaleY();
+			double toX = pane.lockScaleX.get() ? sx : bound(sx * factor);
+			double toY = pane.lockScaleY.get() ? sy : bound(sy * factor);
+			double cx = pane.getViewportWidth() / 2;
+			double cy = pane.getViewportHeight() / 2;
+			pane.commit(toX, toY,
+					cx - toX / sx * (cx - pane.affine.getTx()) + translateX,
+					cy - toY / sy * (cy - pane.affine.getTy()) + translateY,
+					factor >= 1);
+		}
+		if (held.isEmpty()) stop();
+	}
+}
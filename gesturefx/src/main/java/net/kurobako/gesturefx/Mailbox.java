@@ -0,0 +1,40 @@
+package net.kurobako.gesturefx;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Private API
+ * <br>
+ * A lock-free single slot that only keeps the latest value: posting replaces a value that was not
+ * taken yet, which is then counted as dropped. Any thread may post, the consumer takes the value
+ * with {@link #take()}.
+ */
+final class Mailbox<T> {
+
+	private final AtomicReference<T> slot = new AtomicReference<>();
+	private final LongAdder posted = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+
+	/**
+	 * Posts a value, replacing the pending one if there is one.
+	 *
+	 * @return true if the slot was empty, false if a pending value was dropped
+	 */
+	boolean post(T value) {
+		posted.increment();
+		T previous = slot.getAndSet(Objects.requireNonNull(value));
+		if (previous != null) dropped.increment();
+		return previous == null;
+	}
+
+	/**
+	 * @return the latest value and empties the slot, null if nothing was posted since the last
+	 * take
+	 */
+	T take() { return slot.getAndSet(null); }
+
+	long postedCount() { return posted.sum(); }
+	long droppedCount() { return dropped.sum(); }
+}
@@ -0,0 +1,306 @@
+package net.kurobako.gesturefx;
+
+import net.kurobako.gesturefx.GesturePane.Transformable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.Bounds;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.transform.Affine;
+
+/**
+ * A {@link Transformable} target for very large uncompressed rasters on disk, such as scientific
+ * image dumps, that are too large to decode or copy into the heap.
+ * <p>
+ * The file is memory-mapped and only the pixels inside
+ * {@link GesturePane#targetViewportProperty()} are read: every visible pixel when a pixel covers
+ * a device pixel or more, otherwise every n-th row and column so that no more pixels than the
+ * screen can show are read (see {@link GesturePane#getDevicePixelsPerUnitX()}). The pixels are
+ * uploaded into a reused {@link WritableImage} through its {@link PixelWriter}; when no
+ * subsampling or conversion is needed they are passed straight from the mapping. All changes of
+ * the view within a pulse are coalesced into a single upload just before the next layout pass.
+ * <p>
+ * The image is shown by {@link #getView()}, which must be placed behind the pane and sized like
+ * it, usually in a {@link javafx.scene.layout.StackPane}:
+ * <pre>{@code
+ * MappedRaster raster = MappedRaster.open(path, 0, 40_000, 30_000, MappedRaster.Format.GRAY);
+ * GesturePane pane = new GesturePane();
+ * raster.attach(pane);
+ * StackPane root = new StackPane(raster.getView(), pane);
+ * }</pre>
+ * Rows are stored top to bottom without padding, a file larger than 2GiB is mapped in several
+ * regions.
+ */
+@SuppressWarnings("unused")
+public final class MappedRaster implements Transformable {
+
+	/**
+	 * Layout of a single pixel in the file.
+	 */
+	public enum Format {
+		/** 4 bytes per pixel in blue, green, red, alpha order, not premultiplied. */
+		BGRA(4),
+		/** 3 bytes per pixel in red, green, blue order. */
+		RGB(3),
+		/** 1 byte of luminance per pixel. */
+		GRAY(1);
+
+		final int bytesPerPixel;
+
+		Format(int bytesPerPixel) { this.bytesPerPixel = bytesPerPixel; }
+	}
+
+	private final int width;
+	private final int height;
+	private final Format format;
+	private final long rowBytes;
+	private final int rowsPerRegion;
+	private final MappedByteBuffer[] regions;
+
+	private final ImageView imageView = new ImageView();
+	private final Affine imageTransform = new Affine();
+	private final Pane view = new Pane(imageView);
+	private final ChangeListener<Bounds> viewportListener =
+			(o, p, n) -> this.trigger.request();
+
+	private GesturePane pane;
+	private PulseTrigger trigger;
+	private WritableImage image;
+	private byte[] scratch = new byte[0];
+	private int renders;
+
+	private MappedRaster(MappedByteBuffer[] regions, int rowsPerRegion,
+	                     int width, int height, Format format) {
+		this.regions = regions;
+		this.rowsPerRegion = rowsPerRegion;
+		this.width = width;
+		this.height = height;
+		this.format = format;
+		this.rowBytes = (long) width * format.bytesPerPixel;
+		imageView.getTransforms().add(imageTransform);
+		imageView.setSmooth(false);
+		imageView.setManaged(false);
+		view.setMinSize(0, 0);
+		view.setPrefSize(0, 0);
+		Rectangle clip = new Rectangle();
+		clip.widthProperty().bind(view.widthProperty());
+		clip.heightProperty().bind(view.heightProperty());
+		view.setClip(clip);
+	}
+
+	/**
+	 * Maps a raster file read-only.
+	 *
+	 * @param path   the file
+	 * @param offset the number of bytes before the first row, e.g. a header
+	 * @param width  the width of the raster in pixels
+	 * @param height the height of the raster in pixels
+	 * @param format the pixel format
+	 * @return the mapped raster
+	 * @throws IOException              if the file cannot be mapped
+	 * @throws IllegalArgumentException if the file is smaller than the raster or a single row is
+	 *                                  larger than 2GiB
+	 */
+	public static MappedRaster open(Path path, long offset,
+	                                int width, int height, Format format) throws IOException {
+		Objects.requireNonNull(format);
+		if (width <= 0 || height <= 0 || offset < 0)
+			throw new IllegalArgumentException("Invalid raster " + width + "x" + height +
+					                                   " at offset " + offset);
+		long rowBytes = (long) width * format.bytesPerPixel;
+		if (rowBytes > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Row of " + rowBytes + " bytes is too large");
+		int rowsPerRegion = (int) Math.min(height, Integer.MAX_VALUE / rowBytes);
+		MappedByteBuffer[] regions = new MappedByteBuffer[(height + rowsPerRegion - 1) /
+				                                                  rowsPerRegion];
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() < offset + rowBytes * height)
+				throw new IllegalArgumentException("File " + path + " has " + channel.size() +
+						                                   " bytes, expected at least " +
+						                                   (offset + rowBytes * height));
+			// the mappings stay valid after the channel is closed
+			for (int i = 0; i < regions.length; i++) {
+				int rows = Math.min(rowsPerRegion, height - i * rowsPerRegion);
+				regions[i] = channel.map(MapMode.READ_ONLY,
+						offset + (long) i * rowsPerRegion * rowBytes, rows * rowBytes);
+			}
+		}
+		return new MappedRaster(regions, rowsPerRegion, width, height, format);
+	}
+
+	@Override public double width() { return width; }
+	@Override public double height() { return height; }
+
+	@Override
+	public void outputScaleChanged(double outputScaleX, double outputScaleY) {
+		if (trigger != null) trigger.request();
+	}
+
+	public Format getFormat() { return format; }
+
+	/**
+	 * @return the node showing the visible part of the raster; place it behind the pane and
+	 * size it like the pane
+	 */
+	public Region getView() { return view; }
+
+	/**
+	 * Sets this raster as the target of the pane and renders on the next pulse whenever the
+	 * target viewport changes. A raster can only be attached to one pane at a time.
+	 *
+	 * @param pane the pane; must not be null
+	 */
+	public void attach(GesturePane pane) {
+		detach();
+		this.pane = Objects.requireNonNull(pane);
+		this.trigger = new PulseTrigger(pane, this::render);
+		pane.setTarget(this);
+		pane.targetViewportProperty().addListener(viewportListener);
+		trigger.request();
+	}
+
+	/**
+	 * Stops rendering for the attached pane, if any. The pane keeps this raster as its target.
+	 */
+	public void detach() {
+		if (pane == null) return;
+		pane.targetViewportProperty().removeListener(viewportListener);
+		trigger.dispose();
+		pane = null;
+		trigger = null;
+	}
+
+	/**
+	 * @return the image the visible pixels are uploaded to, null before the first render; the
+	 * image may be larger than the uploaded region
+	 */
+	WritableImage getImage() { return image; }
+
+	/**
+	 * @return the region of the image that is shown
+	 */
+	Rectangle2D getImageViewport() { return imageView.getViewport(); }
+
+	int getRenderCount() { return renders; }
+
+	private void render() {
+		if (pane == null) return;
+		Bounds visible = pane.getTargetViewport();
+		double scaleX = pane.getCurrentScaleX();
+		double scaleY = pane.getCurrentScaleY();
+		// read every n-th pixel when zoomed out, n target pixels then cover about a device pixel,
+		// which on a hi-dpi screen is smaller than a viewport pixel
+		int stepX = Math.max(1, (int) Math.floor(1 / pane.getDevicePixelsPerUnitX()));
+		int stepY = Math.max(1, (int) Math.floor(1 / pane.getDevicePixelsPerUnitY()));
+		int minCol = clamp((int) Math.floor(visible.getMinX()), width);
+		int minRow = clamp((int) Math.floor(visible.getMinY()), height);
+		int maxCol = clamp((int) Math.ceil(visible.getMaxX()), width);
+		int maxRow = clamp((int) Math.ceil(visible.getMaxY()), height);
+		// align to the sampling grid so that panning does not make the image shimmer
+		minCol -= minCol % stepX;
+		minRow -= minRow % stepY;
+		if (maxCol <= minCol || maxRow <= minRow) {
+			imageView.setVisible(false);
+			return;
+		}
+		renders++;
+		int outWidth = (maxCol - minCol + stepX - 1) / stepX;
+		int outHeight = (maxRow - minRow + stepY - 1) / stepY;
+		if (image == null || image.getWidth() < outWidth || image.getHeight() < outHeight) {
+			// grow with some headroom so that small viewport changes do not reallocate
+			image = new WritableImage(
+					Math.max(outWidth, (int) (outWidth * 1.25)),
+					Math.max(outHeight, (int) (outHeight * 1.25)));
+			imageView.setImage(image);
+		}
+		PixelWriter writer = image.getPixelWriter();
+		if (stepX == 1 && stepY == 1 && format != Format.GRAY) {
+			uploadDirect(writer, minCol, minRow, outWidth, outHeight);
+		} else {
+			uploadSampled(writer, minCol, minRow, stepX, stepY, outWidth, outHeight);
+		}
+		imageView.setViewport(new Rectangle2D(0, 0, outWidth, outHeight));
+		imageTransform.setToTransform(
+				scaleX * stepX, 0, minCol * scaleX + pane.affine.getTx(),
+				0, scaleY * stepY, minRow * scaleY + pane.affine.getTy());
+		imageView.setVisible(true);
+	}
+
+	private static int clamp(int value, int max) { return Math.max(0, Math.min(max, value)); }
+
+	// hands the mapped rows to the writer as they are, one call per mapped region
+	private void uploadDirect(PixelWriter writer, int minCol, int minRow, int outWidth,
+	                          int outHeight) {
+		PixelFormat<ByteBuffer> pixelFormat = format == Format.BGRA ?
+				PixelFormat.getByteBgraInstance() :
+				PixelFormat.getByteRgbInstance();
+		int row = minRow;
+		int end = minRow + outHeight;
+		while (row < end) {
+			int region = row / rowsPerRegion;
+			int rows = Math.min(end, (region + 1) * rowsPerRegion) - row;
+			ByteBuffer buffer = regions[region].duplicate();
+			buffer.position((int) ((row % rowsPerRegion) * rowBytes +
+					                       (long) minCol * format.bytesPerPixel));
+			writer.setPixels(0, row - minRow, outWidth, rows, pixelFormat, buffer, (int) rowBytes);
+			row += rows;
+		}
+	}
+
+	// reads every n-th pixel into a reused BGRA buffer and uploads it with a single call
+	private void uploadSampled(PixelWriter writer, int minCol, int minRow, int stepX, int stepY,
+	                           int outWidth, int outHeight) {
+		int length = outWidth * outHeight * 4;
+		if (scratch.length < length) scratch = new byte[length];
+		byte[] out = scratch;
+		int bpp = format.bytesPerPixel;
+		int i = 0;
+		for (int y = 0; y < outHeight; y++) {
+			int row = minRow + y * stepY;
+			ByteBuffer buffer = regions[row / rowsPerRegion];
+			int base = (int) ((row % rowsPerRegion) * rowBytes);
+			for (int x = 0; x < outWidth; x++) {
+				int index = base + (minCol + x * stepX) * bpp;
+				switch (format) {
+					case BGRA:
+						out[i] = buffer.get(index);
+						out[i + 1] = buffer.get(index + 1);
+						out[i + 2] = buffer.get(index + 2);
+						out[i + 3] = buffer.get(index + 3);
+						break;
+					case RGB:
+						out[i] = buffer.get(index + 2);
+						out[i + 1] = buffer.get(index + 1);
+						out[i + 2] = buffer.get(index);
+						out[i + 3] = (byte) 0xFF;
+						break;
+					case GRAY:
+						byte v = buffer.get(index);
+						out[i] = v;
+						out[i + 1] = v;
+						out[i + 2] = v;
+						out[i + 3] = (byte) 0xFF;
+						break;
+				}
+				i += 4;
+			}
+		}
+		writer.setPixels(0, 0, outWidth, outHeight, PixelFormat.getByteBgraInstance(),
+				out, 0, outWidth * 4);
+	}
+}
@@ -0,0 +1,75 @@
+package net.kurobako.gesturefx;
+
+import java.util.Objects;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.transform.Transform;
+import javafx.stage.Window;
+
+/**
+ * Private API
+ * <br>
+ * Tracks how many device pixels a unit in the local coordinates of a node covers: the render
+ * scale of the window the node is shown in (e.g. 2 on a 200% screen), times the scale of the
+ * node's transforms into the scene. The window's render scale changes when it moves to a screen
+ * with a different output scale, and the node may move to another scene or window, so all of
+ * these are followed. The action is run whenever either axis changes.
+ */
+final class OutputScaleTracker {
+
+	private final Node node;
+	private final Runnable onChange;
+	private final InvalidationListener scaleListener = o -> update();
+	private final ChangeListener<Window> windowListener = (o, p, n) -> setWindow(n);
+	private final ChangeListener<Scene> sceneListener = (o, p, n) -> setScene(p, n);
+
+	private Window window;
+	private double x = 1, y = 1;
+
+	OutputScaleTracker(Node node, Runnable onChange) {
+		this.node = Objects.requireNonNull(node);
+		this.onChange = Objects.requireNonNull(onChange);
+		node.sceneProperty().addListener(sceneListener);
+		node.localToSceneTransformProperty().addListener(scaleListener);
+		setScene(null, node.getScene());
+	}
+
+	double getX() { return x; }
+	double getY() { return y; }
+
+	private void setScene(Scene previous, Scene scene) {
+		if (previous != null) previous.windowProperty().removeListener(windowListener);
+		if (scene != null) scene.windowProperty().addListener(windowListener);
+		setWindow(scene == null ? null : scene.getWindow());
+	}
+
+	private void setWindow(Window window) {
+		if (this.window != null) {
+			this.window.renderScaleXProperty().removeListener(scaleListener);
+			this.window.renderScaleYProperty().removeListener(scaleListener);
+		}
+		this.window = window;
+		if (window != null) {
+			window.renderScaleXProperty().addListener(scaleListener);
+			window.renderScaleYProperty().addListener(scaleListener);
+		}
+		update();
+	}
+
+	private void update() {
+		// also revalidates the transform so that the listener keeps firing
+		Transform transform = node.getLocalToSceneTransform();
+		double renderX = window == null ? 1 : window.getRenderScaleX();
+		double renderY = window == null ? 1 : window.getRenderScaleY();
+		// the length of a unit vector along each axis, which also holds for rotations
+		double x = renderX * Math.hypot(transform.getMxx(), transform.getMyx());
+		double y = renderY * Math.hypot(transform.getMxy(), transform.getMyy());
+		if (x == this.x && y == this.y) return;
+		this.x = x;
+		this.y = y;
+		onChange.run();
+	}
+}
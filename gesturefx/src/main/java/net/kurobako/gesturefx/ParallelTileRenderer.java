@@ -0,0 +1,153 @@
+package net.kurobako.gesturefx;
+
+import java.nio.IntBuffer;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A {@link PixelBufferRenderer.Renderer} that splits each frame into square tiles and renders
+ * them in parallel on a {@link ForkJoinPool}, for CPU bound content such as heatmaps, fractals
+ * or point clouds.
+ * <p>
+ * Tiles write straight into the frame buffer, each into its own region, so no compositing pass
+ * is needed. When the frame becomes stale, tiles that did not start yet are skipped; a
+ * {@link TileRenderer} that renders a single tile for a long time may also poll
+ * {@link #isCancelled()}. Cancellation is tracked per frame (see
+ * {@link PixelBufferRenderer.Renderer#render(IntBuffer, int, int, ViewState, BooleanSupplier)}),
+ * so one instance may render for several {@link PixelBufferRenderer}s.
+ * <pre>{@code
+ * ParallelTileRenderer tiles = new ParallelTileRenderer((pixels, stride, x, y, w, h, state) -> {
+ *     for (int row = y; row < y + h; row++)
+ *         for (int col = x; col < x + w; col++)
+ *             pixels.put(row * stride + col, shade(state.targetPointAt(new Point2D(col, row))));
+ * });
+ * PixelBufferRenderer renderer = new PixelBufferRenderer(tiles);
+ * }</pre>
+ */
+@SuppressWarnings("unused")
+public final class ParallelTileRenderer implements PixelBufferRenderer.Renderer {
+
+	public static final int DEFAULT_TILE_SIZE = 64;
+
+	/**
+	 * Renders one tile of a frame, called concurrently for different tiles.
+	 */
+	@FunctionalInterface
+	public interface TileRenderer {
+		/**
+		 * Writes the pixels of a tile, see {@link PixelBufferRenderer.Renderer} for the pixel
+		 * format. Only the pixels inside the tile may be written and only with absolute puts.
+		 *
+		 * @param pixels the frame buffer
+		 * @param stride the number of pixels in a row of the frame buffer
+		 * @param x      the left edge of the tile in the frame
+		 * @param y      the top edge of the tile in the frame
+		 * @param width  the width of the tile
+		 * @param height the height of the tile
+		 * @param state  the view of the frame
+		 */
+		void render(IntBuffer pixels, int stride, int x, int y, int width, int height,
+		            ViewState state);
+	}
+
+	private final TileRenderer tileRenderer;
+	private final ForkJoinPool pool;
+	private final int tileSize;
+	// the cancellation of the frame whose tile is rendering on the current thread
+	private final ThreadLocal<BooleanSupplier> rendering = new ThreadLocal<>();
+
+	/**
+	 * Creates a tile renderer that uses the {@link ForkJoinPool#commonPool()} and tiles of
+	 * {@link #DEFAULT_TILE_SIZE}.
+	 *
+	 * @param tileRenderer renders the tiles; must not be null
+	 */
+	public ParallelTileRenderer(TileRenderer tileRenderer) {
+		this(tileRenderer, ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+	}
+
+	/**
+	 * @param tileRenderer renders the tiles; must not be null
+	 * @param pool         the pool to render the tiles on; must not be null
+	 * @param tileSize     the width and height of a tile in pixels; must be positive
+	 */
+	public ParallelTileRenderer(TileRenderer tileRenderer, ForkJoinPool pool, int tileSize) {
+		if (tileSize <= 0) throw new IllegalArgumentException("Invalid tile size " + tileSize);
+		this.tileRenderer = Objects.requireNonNull(tileRenderer);
+		this.pool = Objects.requireNonNull(pool);
+		this.tileSize = tileSize;
+	}
+
+	/**
+	 * @return whether the frame of the tile that is rendering on the calling thread became
+	 * stale, false when called outside of {@link TileRenderer#render}
+	 */
+	public boolean isCancelled() {
+		BooleanSupplier cancelled = rendering.get();
+		return cancelled != null && cancelled.getAsBoolean();
+	}
+
+	@Override
+	public void render(IntBuffer pixels, int width, int height, ViewState state) {
+		render(pixels, width, height, state, () -> false);
+	}
+
+	@Override
+	public void render(IntBuffer pixels, int width, int height, ViewState state,
+	                   BooleanSupplier cancelled) {
+		int columns = (width + tileSize - 1) / tileSize;
+		int rows = (height + tileSize - 1) / tileSize;
+		Tiles tiles = new Tiles(pixels, width, height, columns, state, cancelled,
+				0, columns * rows);
+		// invoke() runs in the calling thread if it already belongs to the pool
+		if (ForkJoinTask.getPool() == pool) tiles.invoke();
+		else pool.invoke(tiles);
+	}
+
+	// splits the tile index range in halves until a single tile is left
+	private final class Tiles extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final IntBuffer pixels;
+		private final int width, height, columns;
+		private final ViewState state;
+		private final BooleanSupplier cancelled;
+		private final int from, to;
+
+		Tiles(IntBuffer pixels, int width, int height, int columns, ViewState state,
+		      BooleanSupplier cancelled, int from, int to) {
+			this.pixels = pixels;
+			this.width = width;
+			this.height = height;
+			this.columns = columns;
+			this.state = state;
+			this.cancelled = cancelled;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (cancelled.getAsBoolean() || to <= from) return;
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Tiles(pixels, width, height, columns, state, cancelled, from, mid),
+						new Tiles(pixels, width, height, columns, state, cancelled, mid, to));
+				return;
+			}
+			int x = (from % columns) * tileSize;
+			int y = (from / columns) * tileSize;
+			rendering.set(cancelled);
+			try {
+				tileRenderer.render(pixels, width, x, y,
+						Math.min(tileSize, width - x), Math.min(tileSize, height - y), state);
+			} finally {
+				rendering.remove();
+			}
+		}
+	}
+}
@@ -0,0 +1,353 @@
+package net.kurobako.gesturefx;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.event.EventHandler;
+import javafx.geometry.Bounds;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.transform.Affine;
+
+/**
+ * Double-buffered software rendering for {@link GesturePane.Transformable} targets.
+ * <p>
+ * The renderer owns two viewport-sized {@link IntBuffer}s. Whenever the view changes, the back
+ * buffer is handed to the {@link Renderer} on a worker thread together with the
+ * {@link ViewState} to draw; once it is done the buffers are swapped on the next pulse and the
+ * front buffer is uploaded into a reused {@link WritableImage}. Buffers and image are only
+ * reallocated when the viewport grows past their capacity, so in the steady state rendering
+ * does not allocate pixel memory. A frame that becomes stale while rendering is cancelled (see
+ * {@link Renderer#cancel()}) and discarded; all changes that arrive meanwhile are coalesced into
+ * one more frame.
+ * <p>
+ * Until the next frame is ready the previous one is moved and scaled with the view, so the
+ * content follows gestures without waiting for the renderer.
+ * <p>
+ * With {@link #progressiveProperty()} set, frames are rendered at a quarter of the resolution
+ * between {@link AffineEvent#CHANGE_STARTED} and {@link AffineEvent#CHANGE_FINISHED}, so heavy
+ * content stays interactive during gestures. Once the change finished the view is refined with a
+ * frame at half and then at full resolution. A reduced frame is simply a smaller frame with a
+ * proportionally smaller scale and translation, so renderers need not handle it specially.
+ * <pre>{@code
+ * PixelBufferRenderer renderer = new PixelBufferRenderer((pixels, width, height, state) -> {
+ *     // draw premultiplied ARGB pixels, row by row
+ * });
+ * renderer.attach(pane);
+ * StackPane root = new StackPane(renderer.getView(), pane);
+ * }</pre>
+ * {@link #attach(GesturePane)}, {@link #detach()} and {@link #invalidate()} must be called on
+ * the FX application thread.
+ */
+@SuppressWarnings("unused")
+public final class PixelBufferRenderer {
+
+	/**
+	 * Draws a frame, called on the worker thread.
+	 */
+	@FunctionalInterface
+	public interface Renderer {
+		/**
+		 * @param pixels premultiplied ARGB pixels, row by row without padding, starting at
+		 *               index 0; the buffer may be larger than {@code width * height} and still
+		 *               contains an older frame
+		 * @param width  the width of the frame in pixels
+		 * @param height the height of the frame in pixels
+		 * @param state  the view to draw; the viewport of the state is the frame
+		 */
+		void render(IntBuffer pixels, int width, int height, ViewState state);
+
+		/**
+		 * Draws a frame that may become stale while it is drawn; calls
+		 * {@link #render(IntBuffer, int, int, ViewState)} by default.
+		 *
+		 * @param cancelled whether this frame became stale and will be discarded, cheap to poll
+		 *                  from any thread; unlike {@link #cancel()} it belongs to this frame
+		 *                  only, so it also holds for a cancellation that happened before the
+		 *                  frame started
+		 */
+		default void render(IntBuffer pixels, int width, int height, ViewState state,
+		                    BooleanSupplier cancelled) {
+			render(pixels, width, height, state);
+		}
+
+		/**
+		 * Called on the FX application thread when the view changed while a frame is rendering;
+		 * the frame will be discarded, so the renderer may stop early.
+		 */
+		default void cancel() {}
+	}
+
+	private final Renderer renderer;
+	private final Executor executor;
+	private final boolean direct;
+
+	private final ImageView imageView = new ImageView();
+	private final Affine imageTransform = new Affine();
+	private final Pane view = new Pane(imageView);
+	private final ChangeListener<Bounds> viewportListener = (o, p, n) -> onViewChanged();
+	private final EventHandler<AffineEvent> changeHandler = this::onChange;
+	private final BooleanProperty progressive =
+			new SimpleBooleanProperty(this, "progressive", false);
+
+	private GesturePane pane;
+	private PulseTrigger trigger;
+	// written by the worker before the trigger is requested, replaced on every attach so that a
+	// frame still rendering for a previous attachment cannot publish into this one
+	private AtomicReference<Frame> rendered;
+	private WritableImage image;
+	private IntBuffer front;
+	private IntBuffer back;
+	private int allocations;
+
+	// FX thread only
+	private boolean rendering;
+	private boolean dirty;
+	private boolean changing;
+	// resolution divisor of the frame that is shown
+	private int shownDivisor = 1;
+	// the frame that is rendering, null once it became stale
+	private Frame frame;
+	private ViewState shown;
+
+	// a submitted frame, compared by identity
+	private static final class Frame {
+		final ViewState state;
+		final int divisor;
+		// set on the FX thread, polled by the worker
+		volatile boolean stale;
+
+		Frame(ViewState state, int divisor) {
+			this.state = state;
+			this.divisor = divisor;
+		}
+	}
+
+	/**
+	 * Creates a renderer that draws on the {@link ForkJoinPool#commonPool()} into heap buffers.
+	 *
+	 * @param renderer draws the frames; must not be null
+	 */
+	public PixelBufferRenderer(Renderer renderer) {
+		this(renderer, ForkJoinPool.commonPool(), false);
+	}
+
+	/**
+	 * @param renderer draws the frames; must not be null
+	 * @param executor runs the renderer, at most one frame is rendering at a time; must not be
+	 *                 null
+	 * @param direct   whether to allocate direct buffers, e.g. for renderers that draw with native
+	 *                 code
+	 */
+	public PixelBufferRenderer(Renderer renderer, Executor executor, boolean direct) {
+		this.renderer = Objects.requireNonNull(renderer);
+		this.executor = Objects.requireNonNull(executor);
+		this.direct = direct;
+		imageView.getTransforms().add(imageTransform);
+		imageView.setManaged(false);
+		view.setMinSize(0, 0);
+		view.setPrefSize(0, 0);
+		Rectangle clip = new Rectangle();
+		clip.widthProperty().bind(view.widthProperty());
+		clip.heightProperty().bind(view.heightProperty());
+		view.setClip(clip);
+	}
+
+	/**
+	 * @return the node showing the frames; place it behind the pane and size it like the pane
+	 */
+	public Region getView() { return view; }
+
+	/**
+	 * Renders frames for the given pane from now on; a renderer can only be attached to one pane
+	 * at a time.
+	 *
+	 * @param pane the pane; must not be null
+	 */
+	public void attach(GesturePane pane) {
+		detach();
+		this.pane = Objects.requireNonNull(pane);
+		AtomicReference<Frame> rendered = new AtomicReference<>();
+		this.rendered = rendered;
+		this.trigger = new PulseTrigger(pane, () -> swap(rendered));
+		pane.targetViewportProperty().addListener(viewportListener);
+		pane.addEventHandler(AffineEvent.CHANGE_STARTED, changeHandler);
+		pane.addEventHandler(AffineEvent.CHANGE_FINISHED, changeHandler);
+		changing = pane.isChanging();
+		invalidate();
+	}
+
+	/**
+	 * Stops rendering for the attached pane, if any. A frame that is rendering is discarded.
+	 */
+	public void detach() {
+		if (pane == null) return;
+		pane.targetViewportProperty().removeListener(viewportListener);
+		pane.removeEventHandler(AffineEvent.CHANGE_STARTED, changeHandler);
+		pane.removeEventHandler(AffineEvent.CHANGE_FINISHED, changeHandler);
+		trigger.dispose();
+		pane = null;
+		trigger = null;
+		rendered = null;
+		if (rendering) {
+			// the worker may still be drawing into the back buffer
+			back = null;
+			rendering = false;
+		}
+		dirty = false;
+		discard();
+	}
+
+	/**
+	 * Renders a new frame even if the view did not change, for example after the content
+	 * changed.
+	 */
+	public void invalidate() {
+		if (pane == null) return;
+		if (rendering) {
+			if (!dirty) discard();
+			dirty = true;
+		} else render();
+	}
+
+	// marks the frame that is rendering as stale so that it is not shown
+	private void discard() {
+		if (frame == null) return;
+		frame.stale = true;
+		frame = null;
+		renderer.cancel();
+	}
+
+	/**
+	 * @return the number of pixel buffers and images allocated so far
+	 */
+	int getAllocationCount() { return allocations; }
+
+	WritableImage getImage() { return image; }
+
+	/**
+	 * Whether frames are rendered at reduced resolution during changes and refined afterwards,
+	 * defaults to false.
+	 */
+	public boolean isProgressive() { return progressive.get(); }
+	public BooleanProperty progressiveProperty() { return progressive; }
+	public void setProgressive(boolean progressive) { this.progressive.set(progressive); }
+
+	private void onChange(AffineEvent event) {
+		changing = event.getEventType() == AffineEvent.CHANGE_STARTED;
+		// refine what was rendered during the change
+		if (!changing && shownDivisor > 1) invalidate();
+	}
+
+	// quarter resolution during changes, then one step finer per frame once settled
+	private int divisor() {
+		if (!progressive.get()) return 1;
+		if (changing) return 4;
+		return Math.max(1, shownDivisor / 2);
+	}
+
+	private void onViewChanged() {
+		followView();
+		invalidate();
+	}
+
+	private void render() {
+		int divisor = divisor();
+		double viewportWidth = pane.getViewportWidth() / divisor;
+		double viewportHeight = pane.getViewportHeight() / divisor;
+		int width = (int) Math.ceil(viewportWidth);
+		int height = (int) Math.ceil(viewportHeight);
+		if (width <= 0 || height <= 0) return;
+		ViewState view = pane.getViewState();
+		ViewState state = divisor == 1 ? view : new ViewState(
+				view.getScaleX() / divisor, view.getScaleY() / divisor,
+				view.getTranslateX() / divisor, view.getTranslateY() / divisor,
+				viewportWidth, viewportHeight,
+				view.getTargetWidth(), view.getTargetHeight());
+		int length = width * height;
+		if (back == null || back.capacity() < length) back = allocate(length);
+		IntBuffer pixels = back;
+		PulseTrigger trigger = this.trigger;
+		AtomicReference<Frame> rendered = this.rendered;
+		Frame frame = new Frame(state, divisor);
+		this.frame = frame;
+		rendering = true;
+		dirty = false;
+		executor.execute(() -> {
+			try {
+				pixels.clear();
+				renderer.render(pixels, width, height, state, () -> frame.stale);
+				rendered.set(frame);
+			} finally {
+				// swap even if the renderer failed so that the next frame can start
+				trigger.request();
+			}
+		});
+	}
+
+	private IntBuffer allocate(int length) {
+		allocations++;
+		// grow with some headroom so that small viewport changes do not reallocate
+		int capacity = Math.max(length, (int) (length * 1.25));
+		return direct ?
+				ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder()).asIntBuffer() :
+				IntBuffer.allocate(capacity);
+	}
+
+	private void swap(AtomicReference<Frame> rendered) {
+		// a swap of a previous attachment must not finish a frame of this one
+		if (rendered != this.rendered) return;
+		rendering = false;
+		Frame frame = this.frame;
+		this.frame = null;
+		// a stale frame is discarded, the next one starts right away
+		if (frame != null && pane != null && rendered.compareAndSet(frame, null)) {
+			ViewState state = frame.state;
+			IntBuffer pixels = back;
+			back = front;
+			front = pixels;
+			int width = (int) Math.ceil(state.getViewportWidth());
+			int height = (int) Math.ceil(state.getViewportHeight());
+			if (image == null || image.getWidth() < width || image.getHeight() < height) {
+				allocations++;
+				image = new WritableImage(width, height);
+				imageView.setImage(image);
+			}
+			pixels.clear();
+			image.getPixelWriter().setPixels(0, 0, width, height,
+					PixelFormat.getIntArgbPreInstance(), pixels, width);
+			imageView.setViewport(new Rectangle2D(0, 0, width, height));
+			shown = state;
+			shownDivisor = frame.divisor;
+			followView();
+			// keep refining a reduced frame once the change finished
+			if (!dirty && !changing && shownDivisor > 1) dirty = true;
+		}
+		if (dirty && pane != null) render();
+	}
+
+	// moves and scales the shown frame from the view it was rendered for to the current view
+	private void followView() {
+		ViewState from = shown;
+		if (from == null || pane == null) return;
+		double kx = pane.getCurrentScaleX() / from.getScaleX();
+		double ky = pane.getCurrentScaleY() / from.getScaleY();
+		imageTransform.setToTransform(
+				kx, 0, pane.affine.getTx() - from.getTranslateX() * kx,
+				0, ky, pane.affine.getTy() - from.getTranslateY() * ky);
+	}
+}
@@ -0,0 +1,80 @@
+package net.kurobako.gesturefx;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+
+/**
+ * Private API
+ * <br>
+ * Runs an action at most once per pulse of the scene that a node is attached to.
+ * <p>
+ * {@link #request()} may be called from any thread and any number of times; requests made
+ * before the next pulse are coalesced into a single invocation of the action, which always runs
+ * on the FX application thread just before the layout pass. If the node is not attached to a
+ * scene, the action is run via {@link Platform#runLater(Runnable)} instead. Once disposed, the
+ * action is never run again.
+ */
+final class PulseTrigger {
+
+	private final Node node;
+	private final Runnable action;
+	private final AtomicBoolean requested = new AtomicBoolean(false);
+	private final Runnable pulseListener = this::fire;
+	private final ChangeListener<Scene> sceneListener = (o, p, n) -> {
+		if (p != null) p.removePreLayoutPulseListener(this.pulseListener);
+		if (n != null) n.addPreLayoutPulseListener(this.pulseListener);
+		setAttached(n != null);
+	};
+
+	private volatile boolean attached;
+	private volatile boolean disposed;
+
+	PulseTrigger(Node node, Runnable action) {
+		this.node = Objects.requireNonNull(node);
+		this.action = Objects.requireNonNull(action);
+		node.sceneProperty().addListener(sceneListener);
+		Scene scene = node.getScene();
+		if (scene != null) scene.addPreLayoutPulseListener(pulseListener);
+		attached = scene != null;
+	}
+
+	private void setAttached(boolean attached) {
+		this.attached = attached;
+		// a request might have been made for a scene that no longer pulses for us
+		if (!attached && requested.get()) Platform.runLater(this::fire);
+		else if (attached && requested.get()) Platform.requestNextPulse();
+	}
+
+	/**
+	 * Requests the action to be run on the next pulse; safe to call from any thread.
+	 */
+	void request() {
+		if (disposed || !requested.compareAndSet(false, true)) return;
+		if (attached) Platform.requestNextPulse();
+		else Platform.runLater(this::fire);
+	}
+
+	/**
+	 * Runs the action now if a request is pending; must be called on the FX thread.
+	 */
+	void fire() {
+		if (requested.getAndSet(false) && !disposed) action.run();
+	}
+
+	/**
+	 * Detaches from the node and its scene; pending and later requests are discarded.
+	 */
+	void dispose() {
+		disposed = true;
+		requested.set(false);
+		node.sceneProperty().removeListener(sceneListener);
+		Scene scene = node.getScene();
+		if (scene != null) scene.removePreLayoutPulseListener(pulseListener);
+		attached = false;
+	}
+}
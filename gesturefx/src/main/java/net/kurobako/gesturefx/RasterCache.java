@@ -0,0 +1,278 @@
+package net.kurobako.gesturefx;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.Bounds;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.NonInvertibleTransformException;
+import javafx.scene.transform.Transform;
+
+/**
+ * Caches rasters of expensive vector content (large SVG paths, maps, diagrams) so that zooming
+ * does not re-render the vector graphics on every frame.
+ * <p>
+ * The content is rasterized at discrete scale buckets, powers of {@code √2}. While the scale
+ * changes, the cached raster of the nearest bucket is shown and scaled by the residual. A raster
+ * is a full render of the content on the FX application thread, so the raster of the current
+ * bucket is only rendered once the view settled: on the first pulse after a gesture or animation
+ * of the enclosing {@link GesturePane} finished (see {@link GesturePane#changingProperty()}), or
+ * on the next pulse for changes outside of one, such as a mouse wheel step. Rasters are
+ * kept up to {@link #budgetProperty()} bytes and the least recently shown ones are evicted first.
+ * Where a raster would exceed the budget or the maximum texture size (i.e. when zoomed in far),
+ * the vector content is shown as it is.
+ * <p>
+ * Wrap the content and use the cache as the content of the pane:
+ * <pre>{@code
+ * GesturePane pane = new GesturePane(new RasterCache(svgGroup));
+ * }</pre>
+ * Rasters are rendered with {@link Node#snapshot(SnapshotParameters, WritableImage)}, so the
+ * appearance of the content should not depend on the transforms of its ancestors. Call
+ * {@link #invalidate()} when the content's appearance changed without its bounds changing.
+ */
+@SuppressWarnings("unused")
+public final class RasterCache extends Region {
+
+	public static final long DEFAULT_BUDGET = 64L * 1024 * 1024;
+
+	// a common minimum for the maximum texture size of the graphics pipelines
+	static final int MAX_RASTER_SIZE = 4096;
+
+	private static final double BUCKET_RATIO = Math.sqrt(2);
+
+	private final Node content;
+	private final ImageView imageView = new ImageView();
+	private final Affine imageTransform = new Affine();
+	// in access order, the first entry is the least recently shown raster
+	private final LinkedHashMap<Integer, WritableImage> rasters =
+			new LinkedHashMap<>(16, 0.75f, true);
+	private final LongProperty budget = new SimpleLongProperty(this, "budget", DEFAULT_BUDGET);
+	private final PulseTrigger trigger;
+	private final ChangeListener<Boolean> changingListener = (o, p, n) -> {
+		if (!n) update();
+	};
+
+	private double scale = 1;
+	private long bytes;
+	private int rasterizations;
+	// the bucket of the raster that is shown, null if the content is shown
+	private Integer shown;
+	// the pane whose changes defer rasterization
+	private GesturePane watched;
+
+	/**
+	 * @param content the vector content to cache; must not be null
+	 */
+	@SuppressWarnings("this-escape")
+	public RasterCache(Node content) {
+		this.content = Objects.requireNonNull(content);
+		// always the size of the content, the pane would otherwise stretch it to the viewport
+		setMinSize(USE_PREF_SIZE, USE_PREF_SIZE);
+		setMaxSize(USE_PREF_SIZE, USE_PREF_SIZE);
+		imageView.setManaged(false);
+		imageView.setPreserveRatio(false);
+		imageView.getTransforms().add(imageTransform);
+		getChildren().addAll(content, imageView);
+		trigger = new PulseTrigger(this, this::rasterize);
+		// shapes invalidate their bounds spuriously, e.g. when synced for a snapshot
+		content.boundsInLocalProperty().addListener((o, p, n) -> invalidate());
+		// the raster is in local coordinates, so only its placement changes
+		content.localToParentTransformProperty().addListener(o -> show(shown));
+		localToSceneTransformProperty().addListener((o, p, n) -> onTransformChanged(n));
+		budget.addListener(o -> {
+			evict(shown);
+			update();
+		});
+		update();
+	}
+
+	public Node getContent() { return content; }
+
+	/**
+	 * The maximum number of bytes of cached rasters, defaults to {@link #DEFAULT_BUDGET}. A
+	 * raster takes 4 bytes per pixel.
+	 */
+	public long getBudget() { return budget.get(); }
+	public LongProperty budgetProperty() { return budget; }
+	public void setBudget(long budget) { this.budget.set(budget); }
+
+	/**
+	 * @return the number of bytes of the cached rasters
+	 */
+	public long getCachedBytes() { return bytes; }
+
+	/**
+	 * Discards all rasters and renders the current one again on the next pulse; the content is
+	 * shown meanwhile.
+	 */
+	public void invalidate() {
+		rasters.clear();
+		bytes = 0;
+		update();
+	}
+
+	/**
+	 * @return the bucket of the given scale, the scale of bucket {@code n} is {@code √2^n}
+	 */
+	static int bucketOf(double scale) {
+		return (int) Math.round(Math.log(scale) / Math.log(BUCKET_RATIO));
+	}
+
+	static double scaleOf(int bucket) {
+		// exact for even buckets, pow(√2, 2) is not exactly 2
+		double scale = Math.scalb(1.0, Math.floorDiv(bucket, 2));
+		return Math.floorMod(bucket, 2) == 0 ? scale : scale * BUCKET_RATIO;
+	}
+
+	/**
+	 * @return the bucket of the shown raster, or null if the content is shown
+	 */
+	Integer getShownBucket() { return shown; }
+
+	/**
+	 * @return the cached buckets, least recently shown first
+	 */
+	List<Integer> getCachedBuckets() { return new ArrayList<>(rasters.keySet()); }
+
+	int getRasterizationCount() { return rasterizations; }
+
+	WritableImage getImage() { return (WritableImage) imageView.getImage(); }
+
+	private void onTransformChanged(Transform transform) {
+		// rasterize for the larger axis so that the raster is never magnified by both
+		scale = Math.max(Math.hypot(transform.getMxx(), transform.getMyx()),
+				Math.hypot(transform.getMxy(), transform.getMyy()));
+		update();
+	}
+
+	private void update() {
+		int bucket = bucketOf(scale);
+		if (!fits(bucket)) {
+			show(null);
+			return;
+		}
+		Integer nearest = null;
+		// iterating the keys does not count as an access
+		for (Integer cached : rasters.keySet()) {
+			int distance = Math.abs(cached - bucket);
+			// on a tie prefer the larger raster, downscaling looks better than upscaling
+			if (nearest == null || distance < Math.abs(nearest - bucket) ||
+					    (distance == Math.abs(nearest - bucket) && cached > nearest))
+				nearest = cached;
+		}
+		show(nearest);
+		if (nearest == null || nearest != bucket) trigger.request();
+	}
+
+	// whether a raster of the bucket can be rendered at all
+	private boolean fits(int bucket) {
+		Bounds bounds = content.getBoundsInLocal();
+		double k = scaleOf(bucket);
+		double width = Math.ceil(bounds.getWidth() * k);
+		double height = Math.ceil(bounds.getHeight() * k);
+		return width <= MAX_RASTER_SIZE && height <= MAX_RASTER_SIZE &&
+				       width * height * 4 <= budget.get();
+	}
+
+	private void show(Integer bucket) {
+		shown = bucket;
+		WritableImage image = bucket == null ? null : rasters.get(bucket);
+		if (image == null) {
+			imageView.setImage(null);
+			imageView.setVisible(false);
+			content.setVisible(true);
+			return;
+		}
+		// the raster covers the content's local bounds, place it where the content is
+		double k = scaleOf(bucket);
+		Bounds bounds = content.getBoundsInLocal();
+		imageView.setImage(image);
+		imageView.setX(bounds.getMinX());
+		imageView.setY(bounds.getMinY());
+		imageView.setFitWidth(image.getWidth() / k);
+		imageView.setFitHeight(image.getHeight() / k);
+		imageTransform.setToTransform(content.getLocalToParentTransform());
+		imageView.setVisible(true);
+		content.setVisible(false);
+	}
+
+	// whether the enclosing pane is in a gesture or animation, which also follows moves of this
+	// cache to another pane
+	private boolean isChanging() {
+		GesturePane pane = null;
+		for (Parent parent = getParent(); parent != null; parent = parent.getParent()) {
+			if (parent instanceof GesturePane) {
+				pane = (GesturePane) parent;
+				break;
+			}
+		}
+		if (pane != watched) {
+			if (watched != null) watched.changingProperty().removeListener(changingListener);
+			if (pane != null) pane.changingProperty().addListener(changingListener);
+			watched = pane;
+		}
+		return pane != null && pane.isChanging();
+	}
+
+	private void rasterize() {
+		int bucket = bucketOf(scale);
+		// the listener on the pane updates once the change finished
+		if (rasters.containsKey(bucket) || !fits(bucket) || isChanging()) return;
+		Bounds bounds = content.getBoundsInLocal();
+		double k = scaleOf(bucket);
+		int width = (int) Math.ceil(bounds.getWidth() * k);
+		int height = (int) Math.ceil(bounds.getHeight() * k);
+		if (width <= 0 || height <= 0) return;
+		// undo the content's own transforms so that the raster is in its local coordinates
+		Affine transform = new Affine();
+		transform.appendScale(k, k);
+		try {
+			transform.append(content.getLocalToParentTransform().createInverse());
+		} catch (NonInvertibleTransformException e) {
+			return;
+		}
+		SnapshotParameters parameters = new SnapshotParameters();
+		parameters.setFill(Color.TRANSPARENT);
+		parameters.setTransform(transform);
+		parameters.setViewport(new Rectangle2D(
+				bounds.getMinX() * k, bounds.getMinY() * k, width, height));
+		// an invisible node renders nothing, it is hidden again before the next frame
+		content.setVisible(true);
+		WritableImage image = content.snapshot(parameters, null);
+		rasterizations++;
+		rasters.put(bucket, image);
+		bytes += bytesOf(image);
+		evict(bucket);
+		update();
+	}
+
+	// evicts the least recently shown rasters until the budget is met, except for the given one
+	private void evict(Integer keep) {
+		Iterator<Map.Entry<Integer, WritableImage>> it = rasters.entrySet().iterator();
+		while (bytes > budget.get() && it.hasNext()) {
+			Map.Entry<Integer, WritableImage> entry = it.next();
+			if (entry.getKey().equals(keep)) continue;
+			bytes -= bytesOf(entry.getValue());
+			it.remove();
+		}
+	}
+
+	private static long bytesOf(WritableImage image) {
+		return (long) image.getWidth() * (long) image.getHeight() * 4;
+	}
+}
@@ -0,0 +1,158 @@
+package net.kurobako.gesturefx;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import javafx.animation.AnimationTimer;
+import javafx.animation.Interpolator;
+import javafx.util.Duration;
+
+/**
+ * Private API
+ * <br>
+ * Pulse driven animation of a scale and translation state ({@code scaleX, scaleY, tx, ty}).
+ * <p>
+ * The state is kept in primitive arrays and eased with
+ * {@link Interpolator#interpolate(double, double, double)}, so nothing is boxed per frame.
+ * Starting an animation while another one is running retargets it: the new animation starts from
+ * the given state and blends in the velocity of the running one with a cubic Hermite start
+ * tangent, so the motion continues smoothly instead of stopping and restarting.
+ */
+final class TransformAnimator extends AnimationTimer {
+
+	static final int SX = 0;
+	static final int SY = 1;
+	static final int TX = 2;
+	static final int TY = 3;
+	static final int SIZE = 4;
+
+	/**
+	 * Receives the interpolated state for every frame.
+	 */
+	interface FrameConsumer {
+		void accept(double scaleX, double scaleY, double tx, double ty);
+	}
+
+	/**
+	 * A non-linear path between two states; the default path interpolates each component
+	 * linearly.
+	 */
+	interface Path {
+		/**
+		 * Writes the state at the given eased progress into {@code out}.
+		 *
+		 * @param t   progress in [0, 1], after easing
+		 * @param out the state, indexed by {@link #SX}, {@link #SY}, {@link #TX} and {@link #TY}
+		 */
+		void at(double t, double[] out);
+	}
+
+	private final double[] from = new double[SIZE];
+	private final double[] to = new double[SIZE];
+	private final double[] tangent = new double[SIZE];
+	private final double[] value = new double[SIZE];
+	private final double[] velocity = new double[SIZE];
+	private final double[] point = new double[SIZE];
+
+	private Interpolator interpolator = Interpolator.LINEAR;
+	private Path path;
+	private FrameConsumer consumer;
+	private Runnable onFinished;
+	private Runnable onInterrupted;
+	private long durationNanos;
+	private long startNanos = -1;
+	private long lastNanos = -1;
+	private boolean running = false;
+
+	boolean isRunning() { return running; }
+
+	/**
+	 * Starts animating from one state to another, retargeting the running animation if there is
+	 * one. The {@code onFinished} action of a retargeted animation is discarded and its
+	 * {@code onInterrupted} action is run instead.
+	 *
+	 * @param duration     the duration of the animation
+	 * @param interpolator the easing, null for linear
+	 * @param from         the start state, indexed by {@link #SX}, {@link #SY}, {@link #TX} and
+	 *                     {@link #TY}
+	 * @param to           the end state, indexed the same way
+	 * @param path         the path from {@code from} to {@code to}, null for linear
+	 * @param consumer     receives each frame
+	 * @param onFinished    run after the last frame, may be null
+	 * @param onInterrupted run when the animation is retargeted or cancelled before its last
+	 *                      frame, may be null
+	 */
+	void start(Duration duration, Interpolator interpolator,
+	           double[] from, double[] to, Path path,
+	           FrameConsumer consumer, Runnable onFinished, Runnable onInterrupted) {
+		Runnable interrupted = running ? this.onInterrupted : null;
+		this.durationNanos = (long) (duration.toMillis() * 1_000_000);
+		this.interpolator = interpolator == null ? Interpolator.LINEAR : interpolator;
+		this.path = path;
+		this.consumer = Objects.requireNonNull(consumer);
+		this.onFinished = onFinished;
+		this.onInterrupted = onInterrupted;
+		double seconds = durationNanos / 1e9;
+		for (int i = 0; i < SIZE; i++) {
+			this.from[i] = from[i];
+			this.to[i] = to[i];
+			// carry the current velocity over as the start tangent of the new curve
+			this.tangent[i] = running ? velocity[i] * seconds : 0;
+		}
+		if (!running) {
+			System.arraycopy(from, 0, value, 0, SIZE);
+			Arrays.fill(velocity, 0);
+			lastNanos = -1;
+		}
+		startNanos = -1;
+		running = true;
+		start();
+		if (interrupted != null) interrupted.run();
+	}
+
+	/**
+	 * Stops the running animation, running its {@code onInterrupted} action instead of its
+	 * {@code onFinished} action.
+	 */
+	void cancel() {
+		Runnable interrupted = running ? onInterrupted : null;
+		reset();
+		if (interrupted != null) interrupted.run();
+	}
+
+	private void reset() {
+		stop();
+		running = false;
+		path = null;
+		consumer = null;
+		onFinished = null;
+		onInterrupted = null;
+		Arrays.fill(velocity, 0);
+	}
+
+	@Override
+	public void handle(long now) {
+		if (!running) return;
+		if (startNanos < 0) startNanos = now;
+		double t = durationNanos <= 0 ? 1 : Math.min(1, (now - startNanos) / (double) durationNanos);
+		double eased = interpolator.interpolate(0.0, 1.0, t);
+		// Hermite basis for the start tangent: h(0) = h(1) = 0, h'(0) = 1, h'(1) = 0
+		double hermite = t * (1 - t) * (1 - t);
+		double dt = lastNanos < 0 ? 0 : (now - lastNanos) / 1e9;
+		if (path != null) path.at(eased, point);
+		for (int i = 0; i < SIZE; i++) {
+			double p = path != null ? point[i] : from[i] + (to[i] - from[i]) * eased;
+			double v = t >= 1 ? to[i] : p + tangent[i] * hermite;
+			if (dt > 0) velocity[i] = (v - value[i]) / dt;
+			value[i] = v;
+		}
+		lastNanos = now;
+		FrameConsumer frame = consumer;
+		frame.accept(value[SX], value[SY], value[TX], value[TY]);
+		if (t >= 1 && running && consumer == frame) {
+			Runnable action = onFinished;
+			reset();
+			if (action != null) action.run();
+		}
+	}
+}
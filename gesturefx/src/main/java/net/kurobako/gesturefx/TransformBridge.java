@@ -0,0 +1,145 @@
+package net.kurobako.gesturefx;
+
+import java.util.Objects;
+
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.Bounds;
+
+/**
+ * Pushes the transform of a {@link GesturePane} to a renderer outside the scene graph, such as a
+ * {@code WebView} document, an embedded Swing component or a native surface.
+ * <p>
+ * Pushes to such renderers are usually expensive (a synchronous script call, a cross-toolkit
+ * hop), so instead of one push per {@link AffineEvent#CHANGED}:
+ * <ul>
+ * <li>changes are conflated to at most one push per pulse, with the latest transform</li>
+ * <li>a push is skipped when no point of the viewport would move by more than
+ * {@link #toleranceProperty()} pixels compared to the last pushed transform</li>
+ * <li>the transform is handed over as primitives, so no strings or arrays are allocated unless
+ * the {@link Sink} does so itself</li>
+ * </ul>
+ * For a WebView, bind a script function once and call it with the numbers:
+ * <pre>{@code
+ * JSObject apply = (JSObject) engine.executeScript(
+ *     "(function(a, b, c, d) { document.body.style.transform = " +
+ *     "'matrix(' + a + ',0,0,' + b + ',' + c + ',' + d + ')'; })");
+ * TransformBridge bridge = new TransformBridge((sx, sy, tx, ty) ->
+ *     apply.call("call", null, sx, sy, tx, ty));
+ * bridge.attach(pane);
+ * }</pre>
+ * The sink is called on the FX application thread, just before the layout pass.
+ */
+@SuppressWarnings("unused")
+public final class TransformBridge {
+
+	public static final double DEFAULT_TOLERANCE = 0.1;
+
+	/**
+	 * Receives the transform of the pane, a target point {@code p} is shown at
+	 * {@code p * scale + translate} in viewport coordinates.
+	 */
+	@FunctionalInterface
+	public interface Sink {
+		void push(double scaleX, double scaleY, double translateX, double translateY);
+	}
+
+	private final Sink sink;
+	private final ChangeListener<Bounds> viewportListener = (o, p, n) -> this.trigger.request();
+	private final DoubleProperty tolerance =
+			new SimpleDoubleProperty(this, "tolerance", DEFAULT_TOLERANCE);
+
+	private GesturePane pane;
+	private PulseTrigger trigger;
+	private boolean pushed;
+	private boolean forced;
+	private double scaleX, scaleY, translateX, translateY;
+	private int pushes;
+
+	/**
+	 * @param sink receives the transforms; must not be null
+	 */
+	public TransformBridge(Sink sink) {
+		this.sink = Objects.requireNonNull(sink);
+	}
+
+	/**
+	 * Pushes the transform of the given pane from now on, starting on the next pulse. A bridge
+	 * can only be attached to one pane at a time.
+	 *
+	 * @param pane the pane; must not be null
+	 */
+	public void attach(GesturePane pane) {
+		detach();
+		this.pane = Objects.requireNonNull(pane);
+		this.trigger = new PulseTrigger(pane, this::push);
+		pane.targetViewportProperty().addListener(viewportListener);
+		invalidate();
+	}
+
+	/**
+	 * Stops pushing for the attached pane, if any; a pending push is discarded.
+	 */
+	public void detach() {
+		if (pane == null) return;
+		pane.targetViewportProperty().removeListener(viewportListener);
+		trigger.dispose();
+		pane = null;
+		trigger = null;
+	}
+
+	/**
+	 * Pushes the current transform on the next pulse even if it did not change, for example
+	 * after the external renderer reloaded.
+	 */
+	public void invalidate() {
+		if (pane == null) return;
+		forced = true;
+		trigger.request();
+	}
+
+	/**
+	 * How far, in viewport pixels, a point must move for a changed transform to be pushed,
+	 * defaults to {@link #DEFAULT_TOLERANCE}.
+	 */
+	public double getTolerance() { return tolerance.get(); }
+	public DoubleProperty toleranceProperty() { return tolerance; }
+	public void setTolerance(double tolerance) { this.tolerance.set(tolerance); }
+
+	/**
+	 * @return the number of times the sink was called
+	 */
+	int getPushCount() { return pushes; }
+
+	private void push() {
+		if (pane == null) return;
+		double sx = pane.getCurrentScaleX();
+		double sy = pane.getCurrentScaleY();
+		double tx = pane.affine.getTx();
+		double ty = pane.affine.getTy();
+		if (!forced && pushed && maxDisplacement(sx, sy, tx, ty) <= tolerance.get()) return;
+		forced = false;
+		pushed = true;
+		scaleX = sx;
+		scaleY = sy;
+		translateX = tx;
+		translateY = ty;
+		pushes++;
+		sink.push(sx, sy, tx, ty);
+	}
+
+	// how far a viewport point moves from the pushed transform to the given one: the target
+	// point shown at v moves to k(v - t) + t', which is linear in v, so checking the edges of the
+	// viewport suffices
+	private double maxDisplacement(double sx, double sy, double tx, double ty) {
+		return Math.max(
+				displacement(sx / scaleX, translateX, tx, pane.getViewportWidth()),
+				displacement(sy / scaleY, translateY, ty, pane.getViewportHeight()));
+	}
+
+	private static double displacement(double k, double from, double to, double extent) {
+		double atMin = to - k * from;
+		return Math.max(Math.abs(atMin), Math.abs(atMin + (k - 1) * extent));
+	}
+}
@@ -0,0 +1,173 @@
+package net.kurobako.gesturefx;
+
+import net.kurobako.gesturefx.GesturePane.Transformable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+
+/**
+ * Describes how the view changed between two frames, so that a {@link Transformable} target can
+ * reuse what it already rendered instead of rendering the whole viewport again.
+ * <p>
+ * A {@link Kind#TRANSLATE translation} moves every pixel of the previous frame by
+ * ({@link #getTranslateX()}, {@link #getTranslateY()}); only the
+ * {@link #getExposedRegions() exposed regions} need to be rendered, the rest can be shifted. A
+ * {@link Kind#SCALE scale} keeps {@link #getPivot()} in place and changes the resolution of every
+ * pixel, so the whole viewport is exposed; the previous frame scaled about the pivot may serve as
+ * a placeholder. Anything else is {@link Kind#COMBINED}.
+ * <p>
+ * Regions and the pivot are in viewport coordinates of the current frame.
+ */
+@SuppressWarnings("unused")
+public final class ViewDelta {
+
+	/**
+	 * The kind of change from one frame to the next.
+	 */
+	public enum Kind {
+		/** The scale did not change, the view moved and/or the viewport was resized. */
+		TRANSLATE,
+		/** The scale changed about a fixed viewport point. */
+		SCALE,
+		/** The scale changed on one axis while the view moved along the other. */
+		COMBINED
+	}
+
+	// scale factors closer to 1 than this count as unchanged
+	private static final double SCALE_EPSILON = 1e-9;
+	// translations smaller than this, in viewport pixels, count as unchanged
+	private static final double TRANSLATE_EPSILON = 1e-6;
+
+	private final Kind kind;
+	private final ViewState from;
+	private final ViewState to;
+	private final Point2D pivot;
+	private final List<Rectangle2D> exposed;
+
+	private ViewDelta(Kind kind, ViewState from, ViewState to, Point2D pivot,
+	                  List<Rectangle2D> exposed) {
+		this.kind = kind;
+		this.from = from;
+		this.to = to;
+		this.pivot = pivot;
+		this.exposed = Collections.unmodifiableList(exposed);
+	}
+
+	/**
+	 * Computes the change from one view to another.
+	 *
+	 * @param from the previous view; must not be null
+	 * @param to   the current view; must not be null
+	 * @return the change
+	 */
+	public static ViewDelta between(ViewState from, ViewState to) {
+		Objects.requireNonNull(from);
+		Objects.requireNonNull(to);
+		Rectangle2D viewport = new Rectangle2D(0, 0,
+				Math.max(0, to.getViewportWidth()), Math.max(0, to.getViewportHeight()));
+		double kx = to.getScaleX() / from.getScaleX();
+		double ky = to.getScaleY() / from.getScaleY();
+		double dx = to.getTranslateX() - from.getTranslateX();
+		double dy = to.getTranslateY() - from.getTranslateY();
+		boolean scaledX = Math.abs(kx - 1) > SCALE_EPSILON;
+		boolean scaledY = Math.abs(ky - 1) > SCALE_EPSILON;
+		if (!scaledX && !scaledY) {
+			// the previous frame, shifted, still covers part of the viewport
+			Rectangle2D previous = new Rectangle2D(dx, dy,
+					Math.max(0, from.getViewportWidth()), Math.max(0, from.getViewportHeight()));
+			return new ViewDelta(Kind.TRANSLATE, from, to, null, subtract(viewport, previous));
+		}
+		List<Rectangle2D> all = new ArrayList<>(1);
+		if (viewport.getWidth() > 0 && viewport.getHeight() > 0) all.add(viewport);
+		// an unscaled axis must not move for the pivot to stay in place
+		if ((!scaledX && Math.abs(dx) > TRANSLATE_EPSILON) ||
+				    (!scaledY && Math.abs(dy) > TRANSLATE_EPSILON))
+			return new ViewDelta(Kind.COMBINED, from, to, null, all);
+		// the viewport point v maps to k * (v - t) + t', its fixed point is the pivot
+		double px = scaledX ? (to.getTranslateX() - kx * from.getTranslateX()) / (1 - kx) : 0;
+		double py = scaledY ? (to.getTranslateY() - ky * from.getTranslateY()) / (1 - ky) : 0;
+		return new ViewDelta(Kind.SCALE, from, to, new Point2D(px, py), all);
+	}
+
+	// the parts of a that are not covered by b, as at most 4 non-overlapping strips
+	private static List<Rectangle2D> subtract(Rectangle2D a, Rectangle2D b) {
+		List<Rectangle2D> out = new ArrayList<>(4);
+		if (a.getWidth() <= 0 || a.getHeight() <= 0) return out;
+		double minX = Math.max(a.getMinX(), b.getMinX());
+		double minY = Math.max(a.getMinY(), b.getMinY());
+		double maxX = Math.min(a.getMaxX(), b.getMaxX());
+		double maxY = Math.min(a.getMaxY(), b.getMaxY());
+		if (minX >= maxX || minY >= maxY) {
+			out.add(a);
+			return out;
+		}
+		if (minY > a.getMinY())
+			out.add(new Rectangle2D(a.getMinX(), a.getMinY(), a.getWidth(), minY - a.getMinY()));
+		if (maxY < a.getMaxY())
+			out.add(new Rectangle2D(a.getMinX(), maxY, a.getWidth(), a.getMaxY() - maxY));
+		if (minX > a.getMinX())
+			out.add(new Rectangle2D(a.getMinX(), minY, minX - a.getMinX(), maxY - minY));
+		if (maxX < a.getMaxX())
+			out.add(new Rectangle2D(maxX, minY, a.getMaxX() - maxX, maxY - minY));
+		return out;
+	}
+
+	public Kind getKind() { return kind; }
+
+	/**
+	 * @return the view of the previous frame
+	 */
+	public ViewState getFrom() { return from; }
+
+	/**
+	 * @return the view of the current frame
+	 */
+	public ViewState getTo() { return to; }
+
+	/**
+	 * @return the x-axis translation of the view in viewport pixels
+	 */
+	public double getTranslateX() { return to.getTranslateX() - from.getTranslateX(); }
+
+	/**
+	 * @return the y-axis translation of the view in viewport pixels
+	 */
+	public double getTranslateY() { return to.getTranslateY() - from.getTranslateY(); }
+
+	/**
+	 * @return the factor the x-axis scale changed by
+	 */
+	public double getScaleFactorX() { return to.getScaleX() / from.getScaleX(); }
+
+	/**
+	 * @return the factor the y-axis scale changed by
+	 */
+	public double getScaleFactorY() { return to.getScaleY() / from.getScaleY(); }
+
+	/**
+	 * @return the viewport point that stays in place for {@link Kind#SCALE}, null otherwise
+	 */
+	public Point2D getPivot() { return pivot; }
+
+	/**
+	 * @return the regions of the viewport that have to be rendered, never null and empty if the
+	 * previous frame can be reused entirely
+	 */
+	public List<Rectangle2D> getExposedRegions() { return exposed; }
+
+	@Override
+	public String toString() {
+		return "ViewDelta{" +
+				       "kind=" + kind +
+				       ", from=" + from +
+				       ", to=" + to +
+				       ", pivot=" + pivot +
+				       ", exposed=" + exposed +
+				       '}';
+	}
+}
@@ -0,0 +1,146 @@
+package net.kurobako.gesturefx;
+
+/**
+ * Private API
+ * <br>
+ * A bounded history of views in primitive ring buffers, navigated like a browser history:
+ * recording after going back discards the forward entries, and the oldest entry is overwritten
+ * once the capacity is reached.
+ * <p>
+ * A view is stored as its scale and the target point at the centre of the viewport, so that it
+ * can be restored at a different viewport size. Views that are close together are merged: a view
+ * recorded shortly after the previous one replaces it, so a burst of changes such as scroll
+ * steps becomes a single entry, and a view that barely differs from the latest one is not
+ * recorded at all. Views recorded with {@link #anchor} (where a change started) are never
+ * replaced.
+ */
+final class ViewHistory {
+
+	static final int SX = 0;
+	static final int SY = 1;
+	static final int CX = 2;
+	static final int CY = 3;
+	static final int SIZE = 4;
+
+	// views recorded within this time of the latest one replace it
+	static final long MERGE_NANOS = 500_000_000L;
+	// views with scales closer than this (in log space) and centres closer than this many
+	// viewport pixels are considered equal
+	static final double MERGE_SCALE = 0.05;
+	static final double MERGE_DISTANCE = 8;
+
+	private final int capacity;
+	private final double[] views;
+	private final long[] times;
+	private final boolean[] anchors;
+
+	// ring index of the oldest entry
+	private int first = 0;
+	private int size = 0;
+	// logical index of the current entry, -1 if empty
+	private int cursor = -1;
+
+	ViewHistory(int capacity) {
+		if (capacity < 2) throw new IllegalArgumentException("Capacity " + capacity + " < 2");
+		this.capacity = capacity;
+		this.views = new double[capacity * SIZE];
+		this.times = new long[capacity];
+		this.anchors = new boolean[capacity];
+	}
+
+	int size() { return size; }
+	int cursor() { return cursor; }
+	boolean canGoBack() { return cursor > 0; }
+	boolean canGoForward() { return cursor < size - 1; }
+
+	void clear() {
+		first = 0;
+		size = 0;
+		cursor = -1;
+	}
+
+	/**
+	 * Records the view a change starts from, unless the current entry already is that view.
+	 */
+	void anchor(double sx, double sy, double cx, double cy, long nanos) {
+		if (cursor >= 0 && close(slot(cursor), sx, sy, cx, cy)) return;
+		push(sx, sy, cx, cy, nanos, true);
+	}
+
+	/**
+	 * Records the view a change finished at.
+	 */
+	void record(double sx, double sy, double cx, double cy, long nanos) {
+		if (cursor < 0) {
+			push(sx, sy, cx, cy, nanos, false);
+			return;
+		}
+		int tip = slot(cursor);
+		boolean recent = !anchors[tip] && nanos - times[tip] < MERGE_NANOS;
+		boolean close = close(tip, sx, sy, cx, cy);
+		if (recent || (close && !anchors[tip])) {
+			// forward entries are discarded like for a new entry
+			size = cursor + 1;
+			write(tip, sx, sy, cx, cy, nanos, false);
+		} else if (!close) {
+			push(sx, sy, cx, cy, nanos, false);
+		}
+	}
+
+	/**
+	 * Moves to the previous entry and writes it to {@code out} in {@link #SX} order.
+	 *
+	 * @return false if there is no previous entry
+	 */
+	boolean back(double[] out) {
+		if (!canGoBack()) return false;
+		read(slot(--cursor), out);
+		return true;
+	}
+
+	/**
+	 * Moves to the next entry and writes it to {@code out} in {@link #SX} order.
+	 *
+	 * @return false if there is no next entry
+	 */
+	boolean forward(double[] out) {
+		if (!canGoForward()) return false;
+		read(slot(++cursor), out);
+		return true;
+	}
+
+	private int slot(int index) { return (first + index) % capacity; }
+
+	private void push(double sx, double sy, double cx, double cy, long nanos, boolean anchor) {
+		size = cursor + 1;
+		if (size == capacity) {
+			first = (first + 1) % capacity;
+			size--;
+		}
+		cursor = size++;
+		write(slot(cursor), sx, sy, cx, cy, nanos, anchor);
+	}
+
+	private void write(int slot, double sx, double sy, double cx, double cy,
+	                   long nanos, boolean anchor) {
+		int i = slot * SIZE;
+		views[i + SX] = sx;
+		views[i + SY] = sy;
+		views[i + CX] = cx;
+		views[i + CY] = cy;
+		times[slot] = nanos;
+		anchors[slot] = anchor;
+	}
+
+	private void read(int slot, double[] out) {
+		System.arraycopy(views, slot * SIZE, out, 0, SIZE);
+	}
+
+	private boolean close(int slot, double sx, double sy, double cx, double cy) {
+		int i = slot * SIZE;
+		return Math.abs(Math.log(sx / views[i + SX])) < MERGE_SCALE &&
+				       Math.abs(Math.log(sy / views[i + SY])) < MERGE_SCALE &&
+				       Math.hypot((cx - views[i + CX]) * sx, (cy - views[i + CY]) * sy) <
+				       MERGE_DISTANCE;
+	}
+}
@@ -0,0 +1,232 @@
+package net.kurobako.gesturefx;
+
+import net.kurobako.gesturefx.GesturePane.FitMode;
+
+import java.util.Objects;
+
+import javafx.geometry.Bounds;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Point2D;
+
+import static net.kurobako.gesturefx.TransformAnimator.SIZE;
+import static net.kurobako.gesturefx.TransformAnimator.SX;
+import static net.kurobako.gesturefx.TransformAnimator.SY;
+import static net.kurobako.gesturefx.TransformAnimator.TX;
+import static net.kurobako.gesturefx.TransformAnimator.TY;
+
+/**
+ * The transform math of {@link GesturePane} as pure functions over {@link ViewState}: bounding
+ * by {@link FitMode}, min/max scale and zooming about a pivot.
+ * <p>
+ * A solver is immutable and does not touch the scene graph, so it can be used on any thread,
+ * for example to compute a follow camera on a data acquisition thread:
+ * <pre>{@code
+ * ViewSolver solver = pane.getViewSolver();
+ * ViewState state = pane.getViewState();
+ * // on another thread
+ * state = solver.centreOn(state, latestPosition);
+ * pane.postViewState(state);
+ * }</pre>
+ * Posted states are not applied blindly: on the FX application thread the pane drops scale
+ * changes on locked axes and bounds the state again against its current viewport, target and
+ * fit mode, taking the zoom direction from the current scale like its own operations do. The
+ * pane uses the same computation as the solver, so a state solved from the current state is
+ * applied unchanged as long as the dimensions still match and no scale is locked.
+ */
+@SuppressWarnings("unused")
+public final class ViewSolver {
+
+	private final FitMode fitMode;
+	private final double minScale;
+	private final double maxScale;
+
+	/**
+	 * @param fitMode  the fit mode to bound states with; must not be null
+	 * @param minScale the minimum scale
+	 * @param maxScale the maximum scale
+	 */
+	public ViewSolver(FitMode fitMode, double minScale, double maxScale) {
+		this.fitMode = Objects.requireNonNull(fitMode);
+		this.minScale = minScale;
+		this.maxScale = maxScale;
+	}
+
+	public FitMode getFitMode() { return fitMode; }
+	public double getMinScale() { return minScale; }
+	public double getMaxScale() { return maxScale; }
+
+	/**
+	 * Bounds the state by the fit mode, this is what the pane does on every layout.
+	 *
+	 * @param state the state to bound
+	 * @return the bounded state
+	 */
+	public ViewState clamp(ViewState state) {
+		return solve(state, state.getScaleX(), state.getScaleY(),
+				state.getTranslateX(), state.getTranslateY(), false);
+	}
+
+	/**
+	 * Translates the view so that the given target point is centred in the viewport.
+	 *
+	 * @param state         the current state
+	 * @param pointOnTarget the point to centre on, in target coordinates
+	 * @return the bounded state
+	 */
+	public ViewState centreOn(ViewState state, Point2D pointOnTarget) {
+		return solve(state, state.getScaleX(), state.getScaleY(),
+				state.getViewportWidth() / 2 - pointOnTarget.getX() * state.getScaleX(),
+				state.getViewportHeight() / 2 - pointOnTarget.getY() * state.getScaleY(),
+				true);
+	}
+
+	/**
+	 * Translates the view by the given amount in target coordinates.
+	 *
+	 * @param state        the current state
+	 * @param targetAmount the translation delta in target coordinates
+	 * @return the bounded state
+	 */
+	public ViewState translateBy(ViewState state, Dimension2D targetAmount) {
+		return solve(state, state.getScaleX(), state.getScaleY(),
+				state.getTranslateX() - targetAmount.getWidth() * state.getScaleX(),
+				state.getTranslateY() - targetAmount.getHeight() * state.getScaleY(),
+				true);
+	}
+
+	/**
+	 * Zooms to the given uniform scale, see {@link #zoomTo(ViewState, double, double, Point2D)}.
+	 */
+	public ViewState zoomTo(ViewState state, double scale, Point2D pivotOnTarget) {
+		return zoomTo(state, scale, scale, pivotOnTarget);
+	}
+
+	/**
+	 * Zooms to the given per-axis scales such that the pivot stays at the same place in the
+	 * viewport. Scales are clamped to the min/max scale.
+	 *
+	 * @param state         the current state
+	 * @param scaleX        the target x-axis scale
+	 * @param scaleY        the target y-axis scale
+	 * @param pivotOnTarget the zoom pivot in target coordinates
+	 * @return the bounded state
+	 */
+	public ViewState zoomTo(ViewState state, double scaleX, double scaleY, Point2D pivotOnTarget) {
+		double sx = clamp(minScale, maxScale, scaleX);
+		double sy = clamp(minScale, maxScale, scaleY);
+		Point2D pivot = state.viewportPointAt(pivotOnTarget);
+		return solve(state, sx, sy,
+				pivot.getX() - pivotOnTarget.getX() * sx,
+				pivot.getY() - pivotOnTarget.getY() * sy,
+				sx >= state.getScaleX() || sy >= state.getScaleY());
+	}
+
+	/**
+	 * Zooms and centres the view so that the given region of the target fits the viewport.
+	 *
+	 * @param state        the current state
+	 * @param targetRegion the region to show, in target coordinates
+	 * @return the bounded state
+	 */
+	public ViewState zoomToRegion(ViewState state, Bounds targetRegion) {
+		double scale = targetRegion.getWidth() > 0 && targetRegion.getHeight() > 0 ?
+				Math.min(state.getViewportWidth() / targetRegion.getWidth(),
+						state.getViewportHeight() / targetRegion.getHeight()) :
+				maxScale;
+		double s = clamp(minScale, maxScale, scale);
+		double cx = targetRegion.getMinX() + targetRegion.getWidth() / 2;
+		double cy = targetRegion.getMinY() + targetRegion.getHeight() / 2;
+		return solve(state, s, s,
+				state.getViewportWidth() / 2 - cx * s,
+				state.getViewportHeight() / 2 - cy * s,
+				s >= state.getScaleX() || s >= state.getScaleY());
+	}
+
+	private ViewState solve(ViewState state, double scaleX, double scaleY,
+	                        double tx, double ty, boolean zoomPositive) {
+		double[] out = new double[SIZE];
+		bound(fitMode,
+				state.getViewportWidth(), state.getViewportHeight(),
+				state.getTargetWidth(), state.getTargetHeight(),
+				scaleX, scaleY, tx, ty, zoomPositive, out);
+		return state.withTransform(out[SX], out[SY], out[TX], out[TY]);
+	}
+
+	/**
+	 * Bounds the given scale and translation by the viewport and the fit mode, the result is
+	 * written to {@code out} in {@link TransformAnimator} order. With {@code zoomPositive} unset,
+	 * {@link FitMode#FIT} snaps a scale below the fit scale back to it.
+	 */
+	static void bound(FitMode fitMode,
+	                  double width, double height,
+	                  double targetWidth, double targetHeight,
+	                  double scaleX, double scaleY, double tx, double ty,
+	                  boolean zoomPositive, double[] out) {
+		double scaledWidth = scaleX * targetWidth;
+		double scaledHeight = scaleY * targetHeight;
+
+		// clamp translation
+		double minX = width - scaledWidth;
+		double minY = height - scaledHeight;
+
+		double tsX = scaleX;
+		double tsY = scaleY;
+
+		if (fitMode != FitMode.UNBOUNDED) {
+
+			tx = clamp(minX, 0, tx);
+			ty = clamp(minY, 0, ty);
+			if (width >= scaledWidth) tx = (width - scaleX * targetWidth) / 2;
+			if (height >= scaledHeight) ty = (height - scaleY * targetHeight) / 2;
+		}
+
+		// clamp scale
+		boolean validTarget = targetWidth > 0 && targetHeight > 0;
+		double coverScale = validTarget ? Math.max(width / targetWidth, height / targetHeight) : 1;
+		double fitScale   = validTarget ? Math.min(width / targetWidth, height / targetHeight) : 0;
+		switch (fitMode) {
+			case COVER:
+				if (width >= scaledWidth || height >= scaledHeight)
+					tsX = tsY = coverScale;
+				break;
+			case COVER_FILL:
+				tsX = tsY = coverScale;
+				break;
+			case FIT:
+				if (!zoomPositive && scaleX <= fitScale) {
+					tx = (width - fitScale * targetWidth) / 2;
+					ty = (height - fitScale * targetHeight) / 2;
+					tsX = tsY = fitScale;
+				}
+				break;
+			case FIT_FILL:
+				tx = (width - fitScale * targetWidth) / 2;
+				ty = (height - fitScale * targetHeight) / 2;
+				tsX = tsY = fitScale;
+				break;
+			default:
+				break;
+		}
+
+		// If the scale changed (e.g. COVER/COVER_FILL on viewport resize), the translation was
+		// clamped against the old scale above and must be re-clamped against the new scale.
+		if (tsX != scaleX || tsY != scaleY) {
+			double newScaledWidth  = tsX * targetWidth;
+			double newScaledHeight = tsY * targetHeight;
+			tx = clamp(width - newScaledWidth, 0, tx);
+			ty = clamp(height - newScaledHeight, 0, ty);
+			if (width  >= newScaledWidth)  tx = (width  - newScaledWidth)  / 2;
+			if (height >= newScaledHeight) ty = (height - newScaledHeight) / 2;
+		}
+
+		out[SX] = tsX;
+		out[SY] = tsY;
+		out[TX] = tx;
+		out[TY] = ty;
+	}
+
+	private static double clamp(double min, double max, double value) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+}
@@ -0,0 +1,244 @@
+package net.kurobako.gesturefx;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+
+/**
+ * An immutable snapshot of what a {@link GesturePane} shows: the scale and translation of the
+ * target together with the viewport and target dimensions they apply to.
+ * <p>
+ * Instances are thread-safe and carry no reference to the pane, so they can be created and
+ * transformed (see {@link ViewSolver}) on any thread and handed to the pane with
+ * {@link GesturePane#postViewState(ViewState)}.
+ * <p>
+ * Translation is in viewport coordinates, like {@link GesturePane#getAffine()}: a target point
+ * {@code p} is shown at {@code p * scale + translate}.
+ */
+@SuppressWarnings("unused")
+public final class ViewState {
+
+	/**
+	 * The number of bytes written by {@link #writeTo(ByteBuffer)}.
+	 */
+	public static final int BYTES = 1 + 8 * Double.BYTES;
+
+	private static final byte VERSION = 1;
+	private static final int VALUES = 8;
+
+	private final double scaleX;
+	private final double scaleY;
+	private final double translateX;
+	private final double translateY;
+	private final double viewportWidth;
+	private final double viewportHeight;
+	private final double targetWidth;
+	private final double targetHeight;
+
+	/**
+	 * @param scaleX         the x-axis scale
+	 * @param scaleY         the y-axis scale
+	 * @param translateX     the x-axis translation, in viewport coordinates
+	 * @param translateY     the y-axis translation, in viewport coordinates
+	 * @param viewportWidth  the width of the viewport
+	 * @param viewportHeight the height of the viewport
+	 * @param targetWidth    the width of the target
+	 * @param targetHeight   the height of the target
+	 */
+	public ViewState(double scaleX, double scaleY,
+	                 double translateX, double translateY,
+	                 double viewportWidth, double viewportHeight,
+	                 double targetWidth, double targetHeight) {
+		this.scaleX = scaleX;
+		this.scaleY = scaleY;
+		this.translateX = translateX;
+		this.translateY = translateY;
+		this.viewportWidth = viewportWidth;
+		this.viewportHeight = viewportHeight;
+		this.targetWidth = targetWidth;
+		this.targetHeight = targetHeight;
+	}
+
+	public double getScaleX() { return scaleX; }
+	public double getScaleY() { return scaleY; }
+	public double getTranslateX() { return translateX; }
+	public double getTranslateY() { return translateY; }
+	public double getViewportWidth() { return viewportWidth; }
+	public double getViewportHeight() { return viewportHeight; }
+	public double getTargetWidth() { return targetWidth; }
+	public double getTargetHeight() { return targetHeight; }
+
+	/**
+	 * @return a copy of this state with the given scale and translation, the viewport and target
+	 * dimensions are kept
+	 */
+	public ViewState withTransform(double scaleX, double scaleY,
+	                               double translateX, double translateY) {
+		return new ViewState(scaleX, scaleY, translateX, translateY,
+				viewportWidth, viewportHeight, targetWidth, targetHeight);
+	}
+
+	/**
+	 * @return a copy of this state with the given viewport dimension, the transform is kept
+	 */
+	public ViewState withViewport(double viewportWidth, double viewportHeight) {
+		return new ViewState(scaleX, scaleY, translateX, translateY,
+				viewportWidth, viewportHeight, targetWidth, targetHeight);
+	}
+
+	/**
+	 * @param pointOnTarget a point in target coordinates
+	 * @return the point in viewport coordinates
+	 */
+	public Point2D viewportPointAt(Point2D pointOnTarget) {
+		return new Point2D(pointOnTarget.getX() * scaleX + translateX,
+				pointOnTarget.getY() * scaleY + translateY);
+	}
+
+	/**
+	 * @param viewportPoint a point in viewport coordinates
+	 * @return the point in target coordinates, the point may lie outside of the target
+	 */
+	public Point2D targetPointAt(Point2D viewportPoint) {
+		return new Point2D((viewportPoint.getX() - translateX) / scaleX,
+				(viewportPoint.getY() - translateY) / scaleY);
+	}
+
+	/**
+	 * @return the target point shown at the centre of the viewport
+	 */
+	public Point2D targetPointAtViewportCentre() {
+		return targetPointAt(new Point2D(viewportWidth / 2, viewportHeight / 2));
+	}
+
+	/**
+	 * @return the visible area of the target, in target coordinates
+	 */
+	public Bounds getTargetViewport() {
+		return new BoundingBox(-translateX / scaleX, -translateY / scaleY,
+				viewportWidth / scaleX, viewportHeight / scaleY);
+	}
+
+	/**
+	 * Writes this state at the buffer's position in {@link #BYTES} bytes: a version byte followed
+	 * by the 8 values as big-endian IEEE 754 doubles, in the order of the constructor
+	 * parameters. The encoding does not depend on the buffer's byte order.
+	 *
+	 * @param buffer the buffer to write to
+	 * @return the buffer
+	 * @throws java.nio.BufferOverflowException if fewer than {@link #BYTES} bytes remain
+	 */
+	public ByteBuffer writeTo(ByteBuffer buffer) {
+		if (buffer.remaining() < BYTES) throw new BufferOverflowException();
+		ByteBuffer out = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		out.put(VERSION);
+		for (double value : values()) out.putDouble(value);
+		buffer.position(out.position());
+		return buffer;
+	}
+
+	/**
+	 * Reads a state written by {@link #writeTo(ByteBuffer)} at the buffer's position.
+	 *
+	 * @param buffer the buffer to read from
+	 * @return the state
+	 * @throws java.nio.BufferUnderflowException if fewer than {@link #BYTES} bytes remain
+	 * @throws IllegalArgumentException          if the encoding has an unknown version
+	 */
+	public static ViewState readFrom(ByteBuffer buffer) {
+		if (buffer.remaining() < BYTES) throw new BufferUnderflowException();
+		ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		byte version = in.get();
+		if (version != VERSION)
+			throw new IllegalArgumentException("Unknown ViewState version " + version);
+		double[] values = new double[VALUES];
+		for (int i = 0; i < VALUES; i++) values[i] = in.getDouble();
+		buffer.position(in.position());
+		return of(values);
+	}
+
+	/**
+	 * Returns the stable text form of this state: the version followed by the 8 values in the
+	 * order of the constructor parameters, e.g.
+	 * {@code 1:2.0,2.0,-100.0,-50.0,800.0,600.0,1024.0,768.0}. Values are formatted with
+	 * {@link Double#toString(double)}, so they are parsed back exactly. Unlike
+	 * {@link #toString()}, this form will not change.
+	 *
+	 * @return the text form
+	 */
+	public String toText() {
+		StringBuilder builder = new StringBuilder(64).append(VERSION).append(':');
+		double[] values = values();
+		for (int i = 0; i < VALUES; i++) {
+			if (i > 0) builder.append(',');
+			builder.append(values[i]);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Parses the text form produced by {@link #toText()}.
+	 *
+	 * @param text the text form
+	 * @return the state
+	 * @throws IllegalArgumentException if the text is not a valid text form
+	 */
+	public static ViewState parse(String text) {
+		String prefix = VERSION + ":";
+		if (!text.startsWith(prefix))
+			throw new IllegalArgumentException("Unknown ViewState text form: " + text);
+		String[] parts = text.substring(prefix.length()).split(",", -1);
+		if (parts.length != VALUES)
+			throw new IllegalArgumentException("Expected " + VALUES + " values: " + text);
+		double[] values = new double[VALUES];
+		for (int i = 0; i < VALUES; i++) values[i] = Double.parseDouble(parts[i].trim());
+		return of(values);
+	}
+
+	private double[] values() {
+		return new double[]{scaleX, scaleY, translateX, translateY,
+				viewportWidth, viewportHeight, targetWidth, targetHeight};
+	}
+
+	private static ViewState of(double[] values) {
+		return new ViewState(values[0], values[1], values[2], values[3],
+				values[4], values[5], values[6], values[7]);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		ViewState that = (ViewState) o;
+		return Double.compare(that.scaleX, scaleX) == 0 &&
+				       Double.compare(that.scaleY, scaleY) == 0 &&
+				       Double.compare(that.translateX, translateX) == 0 &&
+				       Double.compare(that.translateY, translateY) == 0 &&
+				       Double.compare(that.viewportWidth, viewportWidth) == 0 &&
+				       Double.compare(that.viewportHeight, viewportHeight) == 0 &&
+				       Double.compare(that.targetWidth, targetWidth) == 0 &&
+				       Double.compare(that.targetHeight, targetHeight) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(scaleX, scaleY, translateX, translateY,
+				viewportWidth, viewportHeight, targetWidth, targetHeight);
+	}
+
+	@Override
+	public String toString() {
+		return "ViewState{" +
+				       "scale=" + scaleX + "x" + scaleY +
+				       ", translate=" + translateX + "," + translateY +
+				       ", viewport=" + viewportWidth + "x" + viewportHeight +
+				       ", target=" + targetWidth + "x" + targetHeight +
+				       '}';
+	}
+}
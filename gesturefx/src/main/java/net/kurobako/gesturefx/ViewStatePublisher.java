@@ -0,0 +1,171 @@
+package net.kurobako.gesturefx;
+
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Private API
+ * <br>
+ * Publishes {@link ViewState}s to {@link Flow.Subscriber}s, conflating to the latest state.
+ * <p>
+ * The producer (the FX application thread) only writes primitives into a slot guarded by a
+ * {@link StampedLock} and never blocks on or calls into subscribers. Each subscription drains
+ * the slot on its own {@link Executor}, reading it optimistically and allocating the
+ * {@link ViewState} there. A subscriber gets at most one state per requested item, and if it
+ * falls behind it gets only the latest state, intermediate ones are skipped. The slot always
+ * holds a state, so a new subscriber receives the current one on its first request.
+ */
+final class ViewStatePublisher {
+
+	private final StampedLock lock = new StampedLock();
+	private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+	private double scaleX, scaleY, translateX, translateY;
+	private double viewportWidth, viewportHeight, targetWidth, targetHeight;
+	private volatile long version = 0;
+
+	/**
+	 * @param initial the state to deliver until the first {@link #publish}; must not be null
+	 */
+	ViewStatePublisher(ViewState initial) {
+		publish(initial.getScaleX(), initial.getScaleY(),
+				initial.getTranslateX(), initial.getTranslateY(),
+				initial.getViewportWidth(), initial.getViewportHeight(),
+				initial.getTargetWidth(), initial.getTargetHeight());
+	}
+
+	/**
+	 * Replaces the latest state and notifies subscriptions with outstanding demand.
+	 */
+	void publish(double scaleX, double scaleY, double translateX, double translateY,
+	             double viewportWidth, double viewportHeight,
+	             double targetWidth, double targetHeight) {
+		long stamp = lock.writeLock();
+		try {
+			this.scaleX = scaleX;
+			this.scaleY = scaleY;
+			this.translateX = translateX;
+			this.translateY = translateY;
+			this.viewportWidth = viewportWidth;
+			this.viewportHeight = viewportHeight;
+			this.targetWidth = targetWidth;
+			this.targetHeight = targetHeight;
+			version++;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		for (Subscription subscription : subscriptions) {
+			if (subscription.demand.get() > 0) subscription.signal();
+		}
+	}
+
+	/**
+	 * @return the latest published state; safe to call from any thread
+	 */
+	ViewState read() {
+		long stamp = lock.tryOptimisticRead();
+		double sx = scaleX, sy = scaleY, tx = translateX, ty = translateY;
+		double vw = viewportWidth, vh = viewportHeight, tw = targetWidth, th = targetHeight;
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				sx = scaleX;
+				sy = scaleY;
+				tx = translateX;
+				ty = translateY;
+				vw = viewportWidth;
+				vh = viewportHeight;
+				tw = targetWidth;
+				th = targetHeight;
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return new ViewState(sx, sy, tx, ty, vw, vh, tw, th);
+	}
+
+	/**
+	 * @return a publisher that signals its subscribers on the given executor
+	 */
+	Flow.Publisher<ViewState> on(Executor executor) {
+		Objects.requireNonNull(executor);
+		return subscriber -> {
+			Subscription subscription = new Subscription(Objects.requireNonNull(subscriber),
+					executor);
+			subscriptions.add(subscription);
+			subscription.signal();
+		};
+	}
+
+	private final class Subscription implements Flow.Subscription, Runnable {
+
+		private final Flow.Subscriber<? super ViewState> subscriber;
+		private final Executor executor;
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger pending = new AtomicInteger();
+		// only accessed in run(), which is serialised by pending
+		private boolean subscribed = false;
+		private long delivered = 0;
+		private volatile boolean cancelled = false;
+		private volatile Throwable error;
+
+		Subscription(Flow.Subscriber<? super ViewState> subscriber, Executor executor) {
+			this.subscriber = subscriber;
+			this.executor = executor;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				error = new IllegalArgumentException("non-positive request: " + n);
+			} else {
+				demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+			}
+			signal();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			subscriptions.remove(this);
+		}
+
+		void signal() {
+			if (pending.getAndIncrement() != 0) return;
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException e) {
+				cancel();
+				subscriber.onError(e);
+			}
+		}
+
+		@Override
+		public void run() {
+			int missed = 1;
+			do {
+				if (!subscribed) {
+					subscribed = true;
+					subscriber.onSubscribe(this);
+				}
+				if (!cancelled && error != null) {
+					cancel();
+					subscriber.onError(error);
+				}
+				long current = version;
+				if (!cancelled && current != delivered && demand.get() > 0) {
+					delivered = current;
+					if (demand.get() != Long.MAX_VALUE) demand.decrementAndGet();
+					subscriber.onNext(read());
+				}
+				missed = pending.addAndGet(-missed);
+			} while (missed != 0);
+		}
+	}
+}
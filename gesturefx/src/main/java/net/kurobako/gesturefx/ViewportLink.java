@@ -0,0 +1,156 @@
+package net.kurobako.gesturefx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javafx.event.EventHandler;
+
+/**
+ * A shared view model that keeps the viewports of several {@link GesturePane}s in sync, for
+ * example a before/after image comparison or stacked charts sharing the same x-axis.
+ * <p>
+ * Each pane is linked on the x-axis, the y-axis, or both; this mirrors the per-axis split of
+ * {@link GesturePane#lockScaleXProperty()} and {@link GesturePane#lockScaleYProperty()}. A linked
+ * axis shares its scale and the target coordinate shown at the viewport centre, so panes of
+ * different sizes stay aligned on the same point of the content. Axes that are locked on a pane
+ * keep their own scale.
+ * <p>
+ * Propagation is coalesced: when an attached pane changes, the shared state is computed once on
+ * the next pulse and then applied to every other pane as a single atomic change. Changes caused
+ * by the link itself are never fed back, so there are no update loops.
+ * <pre>{@code
+ * ViewportLink link = new ViewportLink();
+ * link.attach(before);
+ * link.attach(after);
+ * // only share the x-axis
+ * link.attach(timeSeries, true, false);
+ * }</pre>
+ * All methods must be called on the FX application thread.
+ */
+@SuppressWarnings("unused")
+public final class ViewportLink {
+
+	private final List<Member> members = new ArrayList<>();
+
+	private Member source;
+	private boolean applying = false;
+
+	/**
+	 * Attaches the pane to this link on both axes, see {@link #attach(GesturePane, boolean,
+	 * boolean)}.
+	 *
+	 * @param pane the pane to attach; must not be null
+	 */
+	public void attach(GesturePane pane) { attach(pane, true, true); }
+
+	/**
+	 * Attaches the pane to this link. If other panes are already attached, the newly attached pane
+	 * is moved to the shared state on the next pulse. Attaching a pane that is already attached
+	 * replaces its axis configuration.
+	 *
+	 * @param pane  the pane to attach; must not be null
+	 * @param linkX whether the x-axis scale and centre is shared
+	 * @param linkY whether the y-axis scale and centre is shared
+	 */
+	public void attach(GesturePane pane, boolean linkX, boolean linkY) {
+		Objects.requireNonNull(pane);
+		detach(pane);
+		Member member = new Member(pane, linkX, linkY);
+		if (!members.isEmpty()) {
+			source = members.get(0);
+			source.trigger.request();
+		}
+		members.add(member);
+	}
+
+	/**
+	 * Detaches the pane from this link; the pane keeps its current transformation.
+	 *
+	 * @param pane the pane to detach
+	 * @return true if the pane was attached
+	 */
+	public boolean detach(GesturePane pane) {
+		for (int i = 0; i < members.size(); i++) {
+			Member member = members.get(i);
+			if (member.pane != pane) continue;
+			member.dispose();
+			members.remove(i);
+			if (source == member) source = null;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Detaches all panes from this link.
+	 */
+	public void detachAll() {
+		members.forEach(Member::dispose);
+		members.clear();
+		source = null;
+	}
+
+	/**
+	 * @return the number of panes currently attached
+	 */
+	public int size() { return members.size(); }
+
+	private void sync() {
+		Member from = source;
+		source = null;
+		if (from == null) return;
+		GesturePane pane = from.pane;
+		// the shared state is computed once regardless of how many panes are attached
+		double scaleX = pane.getCurrentScaleX();
+		double scaleY = pane.getCurrentScaleY();
+		double centreX = (pane.getViewportWidth() / 2 - pane.affine.getTx()) / scaleX;
+		double centreY = (pane.getViewportHeight() / 2 - pane.affine.getTy()) / scaleY;
+		applying = true;
+		try {
+			for (Member member : members) {
+				if (member == from) continue;
+				// only axes linked on both ends are shared
+				boolean x = from.linkX && member.linkX;
+				boolean y = from.linkY && member.linkY;
+				if (!x && !y) continue;
+				GesturePane target = member.pane;
+				target.centreAt(
+						x ? scaleX : target.getCurrentScaleX(),
+						y ? scaleY : target.getCurrentScaleY(),
+						x ? centreX : (target.getViewportWidth() / 2 - target.affine.getTx()) /
+								target.getCurrentScaleX(),
+						y ? centreY : (target.getViewportHeight() / 2 - target.affine.getTy()) /
+								target.getCurrentScaleY());
+			}
+		} finally {
+			applying = false;
+		}
+	}
+
+	private final class Member {
+		final GesturePane pane;
+		final boolean linkX;
+		final boolean linkY;
+		final PulseTrigger trigger;
+		final EventHandler<AffineEvent> handler;
+
+		Member(GesturePane pane, boolean linkX, boolean linkY) {
+			this.pane = pane;
+			this.linkX = linkX;
+			this.linkY = linkY;
+			this.trigger = new PulseTrigger(pane, ViewportLink.this::sync);
+			this.handler = e -> {
+				if (applying) return;
+				source = this;
+				trigger.request();
+			};
+			pane.addEventHandler(AffineEvent.CHANGED, handler);
+		}
+
+		void dispose() {
+			pane.removeEventHandler(AffineEvent.CHANGED, handler);
+			trigger.dispose();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package net.kurobako.gesturefx;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+
+/**
+ * Private API
+ * <br>
+ * Estimates the motion of a viewport from timed samples and extrapolates it.
+ * <p>
+ * The centre moves with a linear velocity and the size changes with an exponential rate, which
+ * is how a pan and a zoom at a constant factor per frame behave. Both are smoothed exponentially
+ * over samples; samples further apart than {@link #MAX_GAP_NANOS} start a new motion.
+ */
+final class ViewportPredictor {
+
+	static final long MAX_GAP_NANOS = 100_000_000L;
+	private static final double SMOOTHING = 0.5;
+
+	private long lastNanos = -1;
+	private double centreX, centreY, width, height;
+	// target units per second and ln(size) per second
+	private double velocityX, velocityY, growthX, growthY;
+
+	void reset() {
+		lastNanos = -1;
+		velocityX = velocityY = growthX = growthY = 0;
+	}
+
+	void sample(long nanos, double minX, double minY, double width, double height) {
+		double cx = minX + width / 2;
+		double cy = minY + height / 2;
+		long gap = nanos - lastNanos;
+		if (lastNanos < 0 || gap > MAX_GAP_NANOS) {
+			velocityX = velocityY = growthX = growthY = 0;
+		} else if (gap > 0 && width > 0 && height > 0 && this.width > 0 && this.height > 0) {
+			double dt = gap / 1e9;
+			velocityX = smooth(velocityX, (cx - centreX) / dt);
+			velocityY = smooth(velocityY, (cy - centreY) / dt);
+			growthX = smooth(growthX, Math.log(width / this.width) / dt);
+			growthY = smooth(growthY, Math.log(height / this.height) / dt);
+		}
+		lastNanos = nanos;
+		centreX = cx;
+		centreY = cy;
+		this.width = width;
+		this.height = height;
+	}
+
+	private static double smooth(double previous, double current) {
+		return previous + (current - previous) * SMOOTHING;
+	}
+
+	boolean isMoving() {
+		return velocityX != 0 || velocityY != 0 || growthX != 0 || growthY != 0;
+	}
+
+	/**
+	 * @return the viewport extrapolated the given number of seconds past the last sample
+	 */
+	Bounds predict(double seconds) {
+		double w = width * Math.exp(growthX * seconds);
+		double h = height * Math.exp(growthY * seconds);
+		return new BoundingBox(
+				centreX + velocityX * seconds - w / 2,
+				centreY + velocityY * seconds - h / 2,
+				w, h);
+	}
+}
@@ -0,0 +1,122 @@
+package net.kurobako.gesturefx;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.event.EventHandler;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.util.Duration;
+
+/**
+ * Predicts where the viewport of a {@link GesturePane} is heading and hands that region to
+ * loaders before it becomes visible, for example to start decoding tiles ahead of a fast pan.
+ * <p>
+ * The motion is estimated from {@link GesturePane#targetViewportProperty()}, so drags, scrolls
+ * and animations are all covered. The viewport is sampled once per pulse in which it changed, so
+ * the intermediate states of a change that writes its properties one by one are not mistaken for
+ * motion. Whenever the viewport moves, the viewport {@link #lookaheadProperty()} ahead is
+ * extrapolated from the current pan velocity and zoom rate; the part of it that lies on the
+ * target is passed to every loader. Nothing is emitted while the view is still and the motion is
+ * forgotten when a change finishes or the pane is resized.
+ * <pre>{@code
+ * ViewportPrefetcher prefetcher = new ViewportPrefetcher(pane);
+ * prefetcher.addLoader(region -> tileCache.prefetch(region));
+ * }</pre>
+ * Loaders are called on the FX application thread and should only schedule work.
+ */
+@SuppressWarnings("unused")
+public final class ViewportPrefetcher {
+
+	public static final Duration DEFAULT_LOOKAHEAD = Duration.millis(300);
+
+	private final GesturePane pane;
+	private final ViewportPredictor predictor = new ViewportPredictor();
+	private final List<Consumer<? super Bounds>> loaders = new CopyOnWriteArrayList<>();
+	private final ObjectProperty<Duration> lookahead =
+			new SimpleObjectProperty<>(this, "lookahead", DEFAULT_LOOKAHEAD);
+
+	private final PulseTrigger trigger;
+	private final ChangeListener<Bounds> viewportListener;
+	private final EventHandler<AffineEvent> finishedHandler = e -> predictor.reset();
+
+	// the size of the pane's viewport when last sampled
+	private double viewportWidth = -1, viewportHeight = -1;
+
+	/**
+	 * @param pane the pane to observe; must not be null
+	 */
+	public ViewportPrefetcher(GesturePane pane) {
+		this.pane = Objects.requireNonNull(pane);
+		this.trigger = new PulseTrigger(pane, this::sample);
+		this.viewportListener = (o, p, n) -> trigger.request();
+		pane.targetViewportProperty().addListener(viewportListener);
+		pane.addEventHandler(AffineEvent.CHANGE_FINISHED, finishedHandler);
+	}
+
+	private void sample() {
+		Bounds viewport = pane.getTargetViewport();
+		// a resize changes the target viewport without any motion of the view
+		if (pane.getViewportWidth() != viewportWidth || pane.getViewportHeight() != viewportHeight) {
+			viewportWidth = pane.getViewportWidth();
+			viewportHeight = pane.getViewportHeight();
+			predictor.reset();
+		}
+		predictor.sample(System.nanoTime(),
+				viewport.getMinX(), viewport.getMinY(), viewport.getWidth(), viewport.getHeight());
+		if (loaders.isEmpty() || !predictor.isMoving()) return;
+		Duration ahead = lookahead.get();
+		if (ahead == null || ahead.lessThanOrEqualTo(Duration.ZERO)) return;
+		Bounds region = clipToTarget(predictor.predict(ahead.toSeconds()));
+		if (region == null) return;
+		for (Consumer<? super Bounds> loader : loaders) loader.accept(region);
+	}
+
+	private Bounds clipToTarget(Bounds region) {
+		double minX = Math.max(0, region.getMinX());
+		double minY = Math.max(0, region.getMinY());
+		double maxX = Math.min(pane.getTargetWidth(), region.getMaxX());
+		double maxY = Math.min(pane.getTargetHeight(), region.getMaxY());
+		if (maxX <= minX || maxY <= minY) return null;
+		return new BoundingBox(minX, minY, maxX - minX, maxY - minY);
+	}
+
+	/**
+	 * Adds a loader that receives predicted regions, in target coordinates.
+	 *
+	 * @param loader the loader; must not be null
+	 */
+	public void addLoader(Consumer<? super Bounds> loader) {
+		loaders.add(Objects.requireNonNull(loader));
+	}
+
+	/**
+	 * @param loader the loader to remove
+	 * @return true if the loader was added before
+	 */
+	public boolean removeLoader(Consumer<? super Bounds> loader) { return loaders.remove(loader); }
+
+	/**
+	 * Stops observing the pane; loaders will not be called anymore.
+	 */
+	public void dispose() {
+		pane.targetViewportProperty().removeListener(viewportListener);
+		pane.removeEventHandler(AffineEvent.CHANGE_FINISHED, finishedHandler);
+		trigger.dispose();
+		loaders.clear();
+	}
+
+	public GesturePane getPane() { return pane; }
+
+	/**
+	 * How far ahead the viewport is predicted, defaults to {@link #DEFAULT_LOOKAHEAD}.
+	 */
+	public Duration getLookahead() { return lookahead.get(); }
+	public ObjectProperty<Duration> lookaheadProperty() { return lookahead; }
+	public void setLookahead(Duration lookahead) { this.lookahead.set(lookahead); }
+}
@@ -0,0 +1,131 @@
+package net.kurobako.gesturefx;
+
+import java.util.Arrays;
+
+/**
+ * An immutable, sorted set of scales (rungs) that zoom gestures of a {@link GesturePane} settle
+ * on, see {@link GesturePane#zoomLadderProperty()}.
+ * <p>
+ * Content that is expensive or blurry to show at arbitrary scales benefits from a ladder: a tile
+ * pyramid with a level for every power of two always hits a level exactly with
+ * {@link #powersOfTwo(double, double)}, and pixel art stays pixel-exact with
+ * {@link #integers(int)}. Rungs are compared in log space, so {@code 1.5} is nearer to
+ * {@code 2} than to {@code 1}.
+ */
+@SuppressWarnings("unused")
+public final class ZoomLadder {
+
+	// scales closer than this in log space are on the same rung
+	private static final double EPSILON = 1e-9;
+
+	private final double[] scales;
+	private final double[] logs;
+
+	private ZoomLadder(double[] scales) {
+		this.scales = scales;
+		this.logs = new double[scales.length];
+		for (int i = 0; i < scales.length; i++) logs[i] = Math.log(scales[i]);
+	}
+
+	/**
+	 * @param scales the rungs, in any order; must be positive and finite, duplicates are removed
+	 * @return a ladder with the given rungs
+	 * @throws IllegalArgumentException if there are no rungs or a rung is not positive and finite
+	 */
+	public static ZoomLadder of(double... scales) {
+		if (scales.length == 0) throw new IllegalArgumentException("No scales given");
+		for (double scale : scales) {
+			if (!(scale > 0) || Double.isInfinite(scale))
+				throw new IllegalArgumentException("Scale " + scale + " is not positive and finite");
+		}
+		return new ZoomLadder(Arrays.stream(scales).sorted().distinct().toArray());
+	}
+
+	/**
+	 * @param min the smallest scale to include
+	 * @param max the largest scale to include
+	 * @return a ladder of the powers of two in [min, max], which are exact doubles
+	 * @throws IllegalArgumentException if there is no power of two in the range
+	 */
+	public static ZoomLadder powersOfTwo(double min, double max) {
+		int from = Math.getExponent(min) + (Math.scalb(1.0, Math.getExponent(min)) < min ? 1 : 0);
+		int to = Math.getExponent(max);
+		if (!(min > 0) || Double.isInfinite(max) || from > to)
+			throw new IllegalArgumentException("No power of two in [" + min + ", " + max + "]");
+		double[] scales = new double[to - from + 1];
+		for (int i = 0; i < scales.length; i++) scales[i] = Math.scalb(1.0, from + i);
+		return new ZoomLadder(scales);
+	}
+
+	/**
+	 * @param max the largest scale to include, at least 1
+	 * @return a ladder of the integral scales 1, 2, ..., max
+	 * @throws IllegalArgumentException if max is less than 1
+	 */
+	public static ZoomLadder integers(int max) {
+		if (max < 1) throw new IllegalArgumentException("Max " + max + " < 1");
+		double[] scales = new double[max];
+		for (int i = 0; i < max; i++) scales[i] = i + 1;
+		return new ZoomLadder(scales);
+	}
+
+	/**
+	 * @return the rungs in ascending order
+	 */
+	public double[] getScales() { return scales.clone(); }
+
+	/**
+	 * @param scale the scale
+	 * @return the rung nearest to the scale in log space
+	 */
+	public double nearest(double scale) {
+		double log = Math.log(scale);
+		int i = Arrays.binarySearch(logs, log);
+		if (i >= 0) return scales[i];
+		int above = -i - 1;
+		if (above == 0) return scales[0];
+		if (above == scales.length) return scales[scales.length - 1];
+		return log - logs[above - 1] <= logs[above] - log ? scales[above - 1] : scales[above];
+	}
+
+	/**
+	 * @param scale the scale
+	 * @return the smallest rung above the scale, or the largest rung if there is none
+	 */
+	public double higher(double scale) {
+		double log = Math.log(scale);
+		for (int i = 0; i < logs.length; i++) if (logs[i] > log + EPSILON) return scales[i];
+		return scales[scales.length - 1];
+	}
+
+	/**
+	 * @param scale the scale
+	 * @return the largest rung below the scale, or the smallest rung if there is none
+	 */
+	public double lower(double scale) {
+		double log = Math.log(scale);
+		for (int i = logs.length - 1; i >= 0; i--) if (logs[i] < log - EPSILON) return scales[i];
+		return scales[0];
+	}
+
+	/**
+	 * @param scale the scale
+	 * @return whether the scale is on a rung
+	 */
+	public boolean contains(double scale) {
+		return Math.abs(Math.log(scale) - Math.log(nearest(scale))) <= EPSILON;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		return Arrays.equals(scales, ((ZoomLadder) o).scales);
+	}
+
+	@Override
+	public int hashCode() { return Arrays.hashCode(scales); }
+
+	@Override
+	public String toString() { return "ZoomLadder" + Arrays.toString(scales); }
+}
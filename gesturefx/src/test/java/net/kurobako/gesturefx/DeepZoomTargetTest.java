@@ -0,0 +1,164 @@
+package net.kurobako.gesturefx;
+
+import net.kurobako.gesturefx.GesturePane.Transformable;
+
+import org.assertj.core.data.Offset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.testfx.api.FxToolkit;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javafx.application.Platform;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Point2D;
+import javafx.scene.transform.Affine;
+
+import static net.kurobako.gesturefx.GesturePaneTests.HANDLER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testfx.util.WaitForAsyncUtils.waitForAsyncFx;
+
+public class DeepZoomTargetTest {
+
+	@BeforeClass public static void setupClass() { GesturePaneTests.setupProperties(); }
+
+	private static final Offset<Double> EQ_OFFSET = Offset.offset(1e-6);
+	private static final Point2D PIVOT = new Point2D(765432.125, 234567.875);
+
+	private final List<Point2D> origins = new CopyOnWriteArrayList<>();
+	private Affine handed;
+	private GesturePane pane;
+	private DeepZoomTarget target;
+
+	@Before public void setup() throws Exception {
+		if (Platform.isFxApplicationThread()) throw new AssertionError("Invalid test state");
+		Thread.setDefaultUncaughtExceptionHandler(HANDLER);
+		FxToolkit.registerPrimaryStage();
+		FxToolkit.setupSceneRoot(() -> {
+			Thread.currentThread().setUncaughtExceptionHandler(HANDLER);
+			target = new DeepZoomTarget(new Transformable() {
+				@Override public double width() { return 1e6; }
+				@Override public double height() { return 1e6; }
+				@Override public void setTransform(Affine affine) { handed = affine; }
+			});
+			target.originProperty().addListener((o, p, n) -> origins.add(n));
+			pane = new GesturePane();
+			pane.setTarget(target);
+			pane.setScrollBarPolicy(GesturePane.ScrollBarPolicy.NEVER);
+			pane.setMinScale(1e-4);
+			pane.setMaxScale(1e4);
+			pane.setPrefSize(200, 200);
+			return pane;
+		});
+		FxToolkit.setupStage(stage -> stage.sizeToScene());
+		FxToolkit.showStage();
+		WaitForAsyncUtils.waitForFxEvents();
+	}
+
+	@After public void tearDown() throws Exception { FxToolkit.cleanupStages(); }
+
+	@Test public void testDelegateGetsSmallTranslation() {
+		waitForAsyncFx(5000, () -> {
+			pane.zoomTo(1000, PIVOT);
+			pane.centreOn(PIVOT);
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(handed).isSameAs(target.getLocalTransform());
+		// the pane's translation is huge, the delegate's stays within a target unit
+		assertThat(Math.abs(pane.affine.getTx())).isGreaterThan(1e8);
+		assertThat(handed.getTx()).isBetween(-1000d, 0d);
+		assertThat(handed.getTy()).isBetween(-1000d, 0d);
+		assertThat(target.getOrigin().getX()).isEqualTo(Math.floor(target.getOrigin().getX()));
+		// both transforms show the pivot at the centre of the viewport
+		Point2D local = PIVOT.subtract(target.getOrigin());
+		assertThat(handed.transform(local).getX()).isCloseTo(100, EQ_OFFSET);
+		assertThat(handed.transform(local).getY()).isCloseTo(100, EQ_OFFSET);
+		assertThat(target.localPointAt(new Point2D(100, 100)).getX())
+				.isCloseTo(local.getX(), EQ_OFFSET);
+	}
+
+	@Test public void testRebasesWhenPannedAway() {
+		waitForAsyncFx(5000, () -> {
+			pane.zoomTo(1000, PIVOT);
+			pane.centreOn(PIVOT);
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		Point2D before = target.getOrigin();
+		int rebases = origins.size();
+		// less than the threshold keeps the origin
+		waitForAsyncFx(5000, () -> pane.translateBy(new Dimension2D(2, 0)));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(target.getOrigin()).isEqualTo(before);
+		// further moves it along on the next pulse, the delegate's translation stays small
+		waitForAsyncFx(5000, () -> pane.translateBy(new Dimension2D(10, 0)));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(origins.size()).isGreaterThan(rebases);
+		assertThat(target.getOrigin().getX()).isGreaterThan(before.getX());
+		assertThat(Math.abs(handed.getTx())).isLessThanOrEqualTo(DeepZoomTarget.REBASE_THRESHOLD);
+	}
+
+	@Test public void testOriginListenersSeeMatchingTransform() {
+		List<Double> offsets = new CopyOnWriteArrayList<>();
+		target.originProperty().addListener((o, p, n) -> {
+			// where the pivot is shown through the new origin and the local transform
+			Point2D local = PIVOT.subtract(n);
+			offsets.add(target.getLocalTransform().transform(local).getX() -
+					            pane.affine.transform(PIVOT).getX());
+		});
+		waitForAsyncFx(5000, () -> {
+			pane.zoomTo(1000, PIVOT);
+			pane.centreOn(PIVOT);
+			pane.translateBy(new Dimension2D(10, 0));
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(offsets).isNotEmpty().allSatisfy(offset ->
+				assertThat(offset).isCloseTo(0, Offset.offset(1e-3)));
+	}
+
+	@Test public void testRebasesOncePerChange() {
+		waitForAsyncFx(5000, () -> {
+			pane.zoomTo(1000, PIVOT);
+			pane.centreOn(PIVOT);
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		int rebases = origins.size();
+		waitForAsyncFx(5000, () -> {
+			// far enough on both axes, written one after the other
+			pane.affine.setTx(pane.affine.getTx() - 10_000);
+			pane.affine.setTy(pane.affine.getTy() - 10_000);
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(origins).hasSize(rebases + 1);
+		assertThat(Math.abs(handed.getTx())).isLessThanOrEqualTo(DeepZoomTarget.REBASE_THRESHOLD);
+		assertThat(Math.abs(handed.getTy())).isLessThanOrEqualTo(DeepZoomTarget.REBASE_THRESHOLD);
+	}
+
+	@Test public void testOriginStableWhenPanningBeyondThresholdScale() {
+		// the top left corner of the viewport is most of a target unit past a whole unit
+		Point2D point = new Point2D(765432.9, 234567.9);
+		waitForAsyncFx(5000, () -> {
+			pane.zoomTo(8192, point);
+			pane.centreOn(point);
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(pane.getCurrentScale()).isEqualTo(8192d);
+		// a target unit is larger than the threshold, the offset still is not
+		assertThat(Math.abs(handed.getTx())).isLessThanOrEqualTo(DeepZoomTarget.REBASE_THRESHOLD);
+		Point2D before = target.getOrigin();
+		int rebases = origins.size();
+		for (int i = 0; i < 5; i++) {
+			// about 80 viewport pixels each
+			waitForAsyncFx(5000, () -> pane.translateBy(new Dimension2D(0.01, 0.01)));
+			WaitForAsyncUtils.waitForFxEvents();
+		}
+		assertThat(origins).hasSize(rebases);
+		assertThat(target.getOrigin()).isEqualTo(before);
+		Point2D local = point.add(0.05, 0.05).subtract(target.getOrigin());
+		assertThat(handed.transform(local).getX()).isCloseTo(100, Offset.offset(1e-3));
+		assertThat(handed.transform(local).getY()).isCloseTo(100, Offset.offset(1e-3));
+	}
+}
@@ -0,0 +1,51 @@
+package net.kurobako.gesturefx;
+
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+import static net.kurobako.gesturefx.TransformAnimator.SX;
+import static net.kurobako.gesturefx.TransformAnimator.TX;
+import static net.kurobako.gesturefx.TransformAnimator.TY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlightPathTest {
+
+	private static final Offset<Double> EQ_OFFSET = Offset.offset(1e-6);
+
+	// viewport 100x100, centred on (cx, cy) at the given scale
+	private static double[] state(double cx, double cy, double scale) {
+		return new double[]{scale, scale, 50 - cx * scale, 50 - cy * scale};
+	}
+
+	@Test public void testEndpoints() {
+		double[] from = state(10, 10, 2);
+		double[] to = state(5000, 20, 8);
+		FlightPath path = new FlightPath(100, 100, from, to);
+		double[] out = new double[TransformAnimator.SIZE];
+		path.at(0, out);
+		assertThat(out).containsExactly(from, EQ_OFFSET);
+		path.at(1, out);
+		assertThat(out).containsExactly(to, EQ_OFFSET);
+	}
+
+	@Test public void testLongDistanceZoomsOut() {
+		FlightPath path = new FlightPath(100, 100, state(10, 10, 2), state(5000, 10, 2));
+		assertThat(path.isSmooth()).isTrue();
+		double[] out = new double[TransformAnimator.SIZE];
+		path.at(0.5, out);
+		assertThat(out[SX]).isLessThan(2);
+		// halfway along the way at the apex
+		assertThat((50 - out[TX]) / out[SX]).isCloseTo(2505, Offset.offset(1d));
+		assertThat((50 - out[TY]) / out[SX]).isCloseTo(10, EQ_OFFSET);
+	}
+
+	@Test public void testShortDistanceIsDirect() {
+		FlightPath path = new FlightPath(100, 100, state(10, 10, 1), state(40, 10, 4));
+		assertThat(path.isSmooth()).isFalse();
+		double[] out = new double[TransformAnimator.SIZE];
+		path.at(0.5, out);
+		// geometric halfway between 1 and 4
+		assertThat(out[SX]).isCloseTo(2, EQ_OFFSET);
+		assertThat((50 - out[TX]) / out[SX]).isCloseTo(25, EQ_OFFSET);
+	}
+}
@@ -0,0 +1,47 @@
+package net.kurobako.gesturefx;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Point2D;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GesturePaneOpsTest {
+
+	// implements only the operations that existed before flyTo and zoomToRegion
+	private static class Recorder implements GesturePaneOps {
+		final List<String> calls = new ArrayList<>();
+
+		@Override public void centreOn(Point2D p) { calls.add("centreOn " + p.getX() + "," + p.getY()); }
+		@Override public void centreOnX(double x) { calls.add("centreOnX " + x); }
+		@Override public void centreOnY(double y) { calls.add("centreOnY " + y); }
+		@Override public void translateBy(Dimension2D d) { calls.add("translateBy"); }
+		@Override public void zoomTo(double sx, double sy, Point2D p) {
+			calls.add("zoomTo " + sx + "," + sy + " at " + p.getX() + "," + p.getY());
+		}
+		@Override public void zoomToX(double sx, Point2D p) { calls.add("zoomToX"); }
+		@Override public void zoomToY(double sy, Point2D p) { calls.add("zoomToY"); }
+		@Override public void zoomBy(double ax, double ay, Point2D p) { calls.add("zoomBy"); }
+		@Override public void zoomByX(double ax, Point2D p) { calls.add("zoomByX"); }
+		@Override public void zoomByY(double ay, Point2D p) { calls.add("zoomByY"); }
+	}
+
+	@Test public void testFlyToZoomsThenCentres() {
+		Recorder ops = new Recorder();
+		ops.flyTo(new Point2D(10, 20), 3);
+		assertThat(ops.calls).containsExactly("zoomTo 3.0,3.0 at 10.0,20.0", "centreOn 10.0,20.0");
+	}
+
+	@Test public void testZoomToRegionUnsupportedByDefault() {
+		Recorder ops = new Recorder();
+		assertThatThrownBy(() -> ops.zoomToRegion(new BoundingBox(0, 0, 10, 10)))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThat(ops.calls).isEmpty();
+	}
+}
@@ -0,0 +1,106 @@
+package net.kurobako.gesturefx;
+
+import org.assertj.core.data.Offset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.testfx.api.FxRobot;
+import org.testfx.api.FxToolkit;
+import org.testfx.util.WaitForAsyncUtils;
+
+import javafx.application.Platform;
+import javafx.geometry.Point2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+import static net.kurobako.gesturefx.GesturePaneTests.HANDLER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testfx.util.WaitForAsyncUtils.waitForAsyncFx;
+
+public class GesturePaneOverviewTest {
+
+	private static final Offset<Double> EQ_OFFSET = Offset.offset(0.5);
+
+	@BeforeClass public static void setupClass() { GesturePaneTests.setupProperties(); }
+
+	private GesturePane pane;
+	private GesturePaneOverview overview;
+
+	@Before public void setup() throws Exception {
+		if (Platform.isFxApplicationThread()) throw new AssertionError("Invalid test state");
+		Thread.setDefaultUncaughtExceptionHandler(HANDLER);
+		FxToolkit.registerPrimaryStage();
+		FxToolkit.setupSceneRoot(() -> {
+			Thread.currentThread().setUncaughtExceptionHandler(HANDLER);
+			pane = new GesturePane(new Rectangle(512, 256, Color.RED));
+			pane.setPrefSize(256, 256);
+			pane.setScrollBarPolicy(GesturePane.ScrollBarPolicy.NEVER);
+			overview = new GesturePaneOverview(pane);
+			overview.setPrefSize(128, 128);
+			overview.setMaxSize(128, 128);
+			return new HBox(pane, overview);
+		});
+		FxToolkit.setupStage(stage -> stage.sizeToScene());
+		FxToolkit.showStage();
+		WaitForAsyncUtils.waitForFxEvents();
+	}
+
+	@After public void tearDown() throws Exception { FxToolkit.cleanupStages(); }
+
+	private Image thumbnail() {
+		return ((ImageView) overview.lookup(".thumbnail")).getImage();
+	}
+
+	private Rectangle viewport() { return (Rectangle) overview.lookup(".viewport"); }
+
+	@Test public void testSnapshotRendered() {
+		Image image = thumbnail();
+		assertThat(image).isNotNull();
+		// 512x256 into 128x128 is scaled by 0.25
+		assertThat(image.getWidth()).isGreaterThanOrEqualTo(128);
+		assertThat(image.getHeight()).isGreaterThanOrEqualTo(64);
+	}
+
+	@Test public void testSnapshotNotRenderedOnTransform() {
+		Image image = thumbnail();
+		waitForAsyncFx(5000, () -> pane.zoomTo(4, new Point2D(100, 100)));
+		waitForAsyncFx(5000, () -> pane.centreOn(new Point2D(300, 100)));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(thumbnail()).isSameAs(image);
+	}
+
+	@Test public void testSnapshotRenderedOnContentChange() {
+		assertThat(thumbnail().getHeight()).isEqualTo(64d);
+		// 256x256 into 128x128 is scaled by 0.5 so the thumbnail is taller now
+		waitForAsyncFx(5000, () -> ((Rectangle) pane.getContent()).setWidth(256));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(thumbnail().getHeight()).isEqualTo(128d);
+	}
+
+	@Test public void testViewportTracksTarget() {
+		waitForAsyncFx(5000, () -> pane.zoomTo(2, new Point2D(100, 100)));
+		waitForAsyncFx(5000, () -> pane.centreOn(new Point2D(300, 100)));
+		WaitForAsyncUtils.waitForFxEvents();
+		Rectangle rect = viewport();
+		// 256x256 viewport at 2x is 128x128 in target space, 32x32 in the overview
+		assertThat(rect.getWidth()).isCloseTo(32, EQ_OFFSET);
+		assertThat(rect.getHeight()).isCloseTo(32, EQ_OFFSET);
+		// content is letterboxed vertically by (128 - 64) / 2
+		assertThat(rect.getX()).isCloseTo((300 - 64) * 0.25, EQ_OFFSET);
+		assertThat(rect.getY()).isCloseTo(32 + (100 - 64) * 0.25, EQ_OFFSET);
+	}
+
+	@Test public void testClickNavigates() {
+		waitForAsyncFx(5000, () -> pane.zoomTo(4, new Point2D(0, 0)));
+		FxRobot robot = new FxRobot();
+		robot.clickOn(overview);
+		WaitForAsyncUtils.waitForFxEvents();
+		Point2D centre = pane.targetPointAtViewportCentre();
+		assertThat(centre.getX()).isCloseTo(256, Offset.offset(4d));
+		assertThat(centre.getY()).isCloseTo(128, Offset.offset(4d));
+	}
+}
@@ -28,25 +28,40 @@ import static org.testfx.util.WaitForAsyncUtils.waitForAsyncFx;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import javafx.animation.AnimationTimer;
 import javafx.animation.Interpolator;
 import javafx.application.Platform;
 import javafx.beans.property.Property;
+import javafx.event.Event;
+import javafx.event.EventType;
 import javafx.geometry.BoundingBox;
 import javafx.geometry.Dimension2D;
 import javafx.geometry.Orientation;
 import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
 import javafx.geometry.VerticalDirection;
 import javafx.scene.Node;
 import javafx.scene.control.ScrollBar;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.input.ZoomEvent;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.transform.Affine;
 import javafx.scene.transform.Transform;
+import javafx.stage.Window;
 import javafx.util.Duration;
 
 import static javafx.geometry.Orientation.HORIZONTAL;
@@ -380,6 +395,611 @@ import static org.mockito.Mockito.verify;
 	}
 
 
+	@Test public void testFlyTo() {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		waitForAsyncFx(5000, () -> pane.flyTo(new Point2D(100, 200), 4));
+		assertThat(pane.getCurrentScale()).isEqualTo(4d);
+		assertThat(pane.targetPointAtViewportCentre().getX()).isCloseTo(100, EQ_OFFSET);
+		assertThat(pane.targetPointAtViewportCentre().getY()).isCloseTo(200, EQ_OFFSET);
+	}
+
+	@Test public void testZoomToRegion() {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		waitForAsyncFx(5000, () -> pane.zoomToRegion(new BoundingBox(300, 100, 128, 64)));
+		// 512x512 viewport, the width is the limiting side
+		assertThat(pane.getCurrentScale()).isEqualTo(4d);
+		assertThat(pane.getTargetViewport().getMinX()).isCloseTo(300, EQ_OFFSET);
+		assertThat(pane.getTargetViewport().getWidth()).isCloseTo(128, EQ_OFFSET);
+		assertThat(pane.targetPointAtViewportCentre().getY()).isCloseTo(132, EQ_OFFSET);
+	}
+
+	@Test public void testAnimatedZoomToRegion() {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		pane.setMaxScale(100);
+		waitForAsyncFx(5000, () -> pane.zoomToRegion(new BoundingBox(0, 0, 16, 16)));
+		Runnable finished = mock(Runnable.class);
+		List<Double> scales = new CopyOnWriteArrayList<>();
+		pane.addEventHandler(AffineEvent.CHANGED, e -> scales.add(pane.getCurrentScale()));
+		// far away relative to the 16x16 visible area so this takes the smooth path
+		pane.animate(Duration.millis(300))
+				.afterFinished(finished)
+				.zoomToRegion(new BoundingBox(480, 480, 32, 32));
+		verify(finished, timeout(1000)).run();
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(pane.getCurrentScale()).isCloseTo(16, EQ_OFFSET);
+		assertThat(pane.targetPointAtViewportCentre().getX()).isCloseTo(496, EQ_OFFSET);
+		assertThat(pane.targetPointAtViewportCentre().getY()).isCloseTo(496, EQ_OFFSET);
+		// zoomed out on the way instead of panning at full zoom
+		assertThat(scales.stream().mapToDouble(d -> d).min().orElse(0)).isLessThan(16);
+	}
+
+	@Test public void testPostViewStateFromAnotherThread() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		ViewState initial = waitForAsyncFx(5000, pane::getViewState);
+		ViewSolver solver = waitForAsyncFx(5000, pane::getViewSolver);
+		List<AffineEvent> events = new CopyOnWriteArrayList<>();
+		pane.addEventHandler(AffineEvent.CHANGED, events::add);
+		Point2D pivot = initial.targetPointAtViewportCentre();
+		Thread producer = new Thread(() -> {
+			for (int i = 1; i <= 1000; i++)
+				pane.postViewState(solver.zoomTo(initial, 1 + i / 500.0, pivot));
+		});
+		producer.start();
+		producer.join();
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(pane.getCurrentScale()).isEqualTo(3d);
+		assertThat(waitForAsyncFx(5000, pane::getViewState))
+				.isEqualTo(solver.zoomTo(initial, 3, pivot));
+		// only the latest state of each pulse is applied
+		assertThat(events.size()).isLessThan(1000);
+		assertThat(pane.getPostedCount()).isEqualTo(1000);
+		assertThat(pane.getDroppedCount()).isGreaterThan(0).isLessThan(1000);
+	}
+
+	@Test public void testPostTransformAppliesToCurrentState() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		ViewSolver solver = waitForAsyncFx(5000, pane::getViewSolver);
+		Thread producer = new Thread(() -> {
+			pane.postTransform(current -> solver.zoomTo(current, 2, new Point2D(0, 0)));
+		});
+		producer.start();
+		producer.join();
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(pane.getCurrentScale()).isEqualTo(2d);
+		assertThat(pane.getPostedCount()).isEqualTo(1);
+		assertThat(pane.getDroppedCount()).isEqualTo(0);
+	}
+
+	@Test public void testPostedZoomBoundedLikeZoomOnFxThread() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		pane.setFitMode(FitMode.FIT);
+		ViewState initial = waitForAsyncFx(5000, pane::getViewState);
+		ViewSolver solver = waitForAsyncFx(5000, pane::getViewSolver);
+		// at the fit scale, zooming in on y alone must not be snapped back as a zoom out
+		Point2D pivot = initial.targetPointAtViewportCentre();
+		ViewState zoomed = solver.zoomTo(initial,
+				initial.getScaleX(), initial.getScaleY() * 2, pivot);
+		List<ViewState> committed = new CopyOnWriteArrayList<>();
+		pane.addEventHandler(AffineEvent.CHANGED, e -> committed.add(pane.getViewState()));
+		pane.postViewState(zoomed);
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(committed).first().isEqualTo(zoomed);
+	}
+
+	@Test public void testPostedStateKeepsLockedScale() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		pane.setLockScaleY(true);
+		ViewState initial = waitForAsyncFx(5000, pane::getViewState);
+		ViewSolver solver = waitForAsyncFx(5000, pane::getViewSolver);
+		pane.postViewState(solver.zoomTo(initial, 2, initial.targetPointAtViewportCentre()));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(pane.getCurrentScaleX()).isEqualTo(2d);
+		assertThat(pane.getCurrentScaleY()).isEqualTo(initial.getScaleY());
+	}
+
+	@Test public void testQueuedTransformsAppliedInOnePulse() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		ViewState initial = waitForAsyncFx(5000, pane::getViewState);
+		ViewSolver solver = waitForAsyncFx(5000, pane::getViewSolver);
+		List<AffineEvent> events = new CopyOnWriteArrayList<>();
+		pane.addEventHandler(AffineEvent.CHANGED, events::add);
+		// hold the FX thread so that every command lands in the same pulse
+		CountDownLatch queued = new CountDownLatch(1);
+		Platform.runLater(() -> {
+			try {
+				queued.await();
+			} catch (InterruptedException e) {
+				throw new AssertionError(e);
+			}
+		});
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < 5; i++)
+				pane.queueTransform(current -> solver.zoomTo(current,
+						current.getScaleX() * 1.2, current.targetPointAtViewportCentre()));
+			queued.countDown();
+		});
+		producer.start();
+		producer.join();
+		WaitForAsyncUtils.waitForFxEvents();
+		// unlike posted transforms, none of the commands are dropped
+		assertThat(pane.getCurrentScale())
+				.isCloseTo(initial.getScaleX() * Math.pow(1.2, 5), EQ_OFFSET);
+		assertThat(events).hasSize(1);
+		// readable without hopping onto the FX thread
+		assertThat(pane.getViewStateSnapshot()).isEqualTo(waitForAsyncFx(5000, pane::getViewState));
+	}
+
+	@Test public void testBackAndForward() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		long settle = ViewHistory.MERGE_NANOS / 1_000_000 + 100;
+		Point2D start = waitForAsyncFx(5000, pane::targetPointAtViewportCentre);
+		double startScale = pane.getCurrentScale();
+		waitForAsyncFx(5000, () -> pane.zoomTo(4, new Point2D(10, 10)));
+		Thread.sleep(settle);
+		Point2D zoomed = waitForAsyncFx(5000, pane::targetPointAtViewportCentre);
+		waitForAsyncFx(5000, () -> pane.centreOn(new Point2D(100, 100)));
+		Thread.sleep(settle);
+
+		List<AffineEvent> events = new CopyOnWriteArrayList<>();
+		pane.addEventHandler(AffineEvent.CHANGED, events::add);
+		assertThat(waitForAsyncFx(5000, () -> pane.back())).isTrue();
+		assertThat(pane.getCurrentScale()).isEqualTo(4d);
+		assertThat(pane.targetPointAtViewportCentre().getX()).isCloseTo(zoomed.getX(), EQ_OFFSET);
+		// restored as a single change
+		assertThat(events).hasSize(1);
+		assertThat(waitForAsyncFx(5000, () -> pane.back())).isTrue();
+		assertThat(pane.getCurrentScale()).isEqualTo(startScale);
+		assertThat(pane.targetPointAtViewportCentre().getX()).isCloseTo(start.getX(), EQ_OFFSET);
+		assertThat(pane.canGoBack()).isFalse();
+		// restores are not recorded, so forward goes where back came from
+		assertThat(waitForAsyncFx(5000, () -> pane.forward())).isTrue();
+		assertThat(pane.getCurrentScale()).isEqualTo(4d);
+		assertThat(pane.canGoForward()).isTrue();
+	}
+
+	@Test public void testAnimatedBack() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		double startScale = pane.getCurrentScale();
+		waitForAsyncFx(5000, () -> pane.zoomTo(4, new Point2D(10, 10)));
+		Runnable finished = mock(Runnable.class);
+		pane.addEventHandler(AffineEvent.CHANGE_FINISHED, e -> finished.run());
+		waitForAsyncFx(5000, () -> pane.back(Duration.millis(100)));
+		verify(finished, timeout(1000)).run();
+		assertThat(pane.getCurrentScale()).isCloseTo(startScale, EQ_OFFSET);
+		assertThat(pane.canGoForward()).isTrue();
+	}
+
+	@Test public void testScrollInterruptsAnimatedBack() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		pane.setScrollMode(GesturePane.ScrollMode.PAN);
+		long settle = ViewHistory.MERGE_NANOS / 1_000_000 + 100;
+		waitForAsyncFx(5000, () -> pane.zoomTo(4, new Point2D(256, 256)));
+		Thread.sleep(settle);
+		waitForAsyncFx(5000, () -> pane.back(Duration.seconds(1)));
+		Thread.sleep(200);
+		// a touchpad pan while the restore is half way
+		Point2D[] interrupted = new Point2D[2];
+		double scale = waitForAsyncFx(5000, () -> {
+			Point2D at = new Point2D(pane.getViewportWidth() / 2, pane.getViewportHeight() / 2);
+			interrupted[0] = pane.targetPointAtViewportCentre();
+			double current = pane.getCurrentScale();
+			Event.fireEvent(pane, scroll(ScrollEvent.SCROLL_STARTED, 0, at));
+			Event.fireEvent(pane, scroll(ScrollEvent.SCROLL, -100, at));
+			Event.fireEvent(pane, scroll(ScrollEvent.SCROLL_FINISHED, 0, at));
+			interrupted[1] = pane.targetPointAtViewportCentre();
+			return current;
+		});
+		assertThat(scale).isGreaterThan(1).isLessThan(4);
+		Thread.sleep(1000);
+		// the restore no longer moves the view
+		assertThat(pane.isChanging()).isFalse();
+		assertThat(pane.getCurrentScale()).isEqualTo(scale);
+		assertThat(pane.targetPointAtViewportCentre().getY())
+				.isCloseTo(interrupted[1].getY(), EQ_OFFSET);
+		// the pan is recorded from where it interrupted the restore
+		assertThat(waitForAsyncFx(5000, () -> pane.back())).isTrue();
+		assertThat(pane.getCurrentScale()).isCloseTo(scale, EQ_OFFSET);
+		assertThat(pane.targetPointAtViewportCentre().getY())
+				.isCloseTo(interrupted[0].getY(), EQ_OFFSET);
+		assertThat(pane.canGoForward()).isTrue();
+	}
+
+	@Test public void testRestoreViewStateAtDifferentViewport() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		waitForAsyncFx(5000, () -> pane.zoomTo(4, new Point2D(100, 80)));
+		ViewState captured = waitForAsyncFx(5000, pane::captureViewState);
+		waitForAsyncFx(5000, () -> pane.reset());
+
+		// captured in a viewport twice as large, the same target point is centred
+		ViewState larger = captured.withViewport(
+				captured.getViewportWidth() * 2, captured.getViewportHeight() * 2);
+		waitForAsyncFx(5000, () -> pane.restoreViewState(ViewState.parse(larger.toText())));
+		Point2D expected = larger.targetPointAtViewportCentre();
+		assertThat(pane.getCurrentScale()).isEqualTo(4d);
+		assertThat(pane.targetPointAtViewportCentre().getX()).isCloseTo(expected.getX(), EQ_OFFSET);
+		assertThat(pane.targetPointAtViewportCentre().getY()).isCloseTo(expected.getY(), EQ_OFFSET);
+
+		// captured with the target at half the resolution, the same part of it is shown
+		ViewState halved = new ViewState(captured.getScaleX() * 2, captured.getScaleY() * 2,
+				captured.getTranslateX(), captured.getTranslateY(),
+				captured.getViewportWidth(), captured.getViewportHeight(),
+				captured.getTargetWidth() / 2, captured.getTargetHeight() / 2);
+		waitForAsyncFx(5000, () -> pane.reset());
+		waitForAsyncFx(5000, () -> pane.restoreViewState(halved));
+		assertThat(pane.getCurrentScale()).isCloseTo(4d, EQ_OFFSET);
+		assertThat(pane.getAffine().getTx()).isCloseTo(captured.getTranslateX(), EQ_OFFSET);
+		assertThat(pane.getAffine().getTy()).isCloseTo(captured.getTranslateY(), EQ_OFFSET);
+	}
+
+	@Test public void testKeyboardNavigationOffByDefault() {
+		assertThat(pane.isKeyboardNavigationEnabled()).isFalse();
+		ViewState before = waitForAsyncFx(5000, pane::getViewState);
+		List<KeyEvent> bubbled = new CopyOnWriteArrayList<>();
+		waitForAsyncFx(5000, () -> {
+			pane.getScene().addEventHandler(KeyEvent.KEY_PRESSED, bubbled::add);
+			Event.fireEvent(pane, key(KeyEvent.KEY_PRESSED, KeyCode.RIGHT));
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		// left to focus traversal and the application's handlers
+		assertThat(bubbled).hasSize(1);
+		assertThat(waitForAsyncFx(5000, pane::getViewState)).isEqualTo(before);
+	}
+
+	@Test public void testKeyboardNavigationCoalescesAutoRepeat() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		pane.setKeyboardNavigationEnabled(true);
+		waitForAsyncFx(5000, () -> pane.centreAt(4, 4,
+				pane.getTargetWidth() / 2, pane.getTargetHeight() / 2));
+		double tx = pane.affine.getTx();
+		List<AffineEvent> changes = new CopyOnWriteArrayList<>();
+		AtomicInteger started = new AtomicInteger();
+		AtomicInteger finished = new AtomicInteger();
+		pane.addEventHandler(AffineEvent.CHANGED, changes::add);
+		pane.addEventHandler(AffineEvent.CHANGE_STARTED, e -> started.incrementAndGet());
+		pane.addEventHandler(AffineEvent.CHANGE_FINISHED, e -> finished.incrementAndGet());
+		long start = System.nanoTime();
+		waitForAsyncFx(5000, () -> {
+			// a held key with 50 auto-repeated presses
+			for (int i = 0; i < 50; i++)
+				Event.fireEvent(pane, key(KeyEvent.KEY_PRESSED, KeyCode.RIGHT));
+			// nothing moves until the next pulse
+			assertThat(pane.affine.getTx()).isEqualTo(tx);
+		});
+		Thread.sleep(200);
+		waitForAsyncFx(5000, () -> Event.fireEvent(pane, key(KeyEvent.KEY_RELEASED, KeyCode.RIGHT)));
+		WaitForAsyncUtils.waitForFxEvents();
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		assertThat(finished.get()).isEqualTo(1);
+		assertThat(started.get()).isEqualTo(1);
+		// one change per pulse, at a constant speed
+		assertThat(changes).isNotEmpty().hasSizeLessThan(50);
+		assertThat(tx - pane.affine.getTx())
+				.isPositive()
+				.isLessThanOrEqualTo(KeyboardNavigator.PAN_SPEED * elapsed);
+		ViewState panned = waitForAsyncFx(5000, pane::getViewState);
+		waitForAsyncFx(5000, () -> Event.fireEvent(pane, key(KeyEvent.KEY_PRESSED, KeyCode.HOME)));
+		ViewState home = waitForAsyncFx(5000, pane::getViewState);
+		assertThat(home).isNotEqualTo(panned);
+		waitForAsyncFx(5000, () -> pane.cover());
+		assertThat(pane.getViewState()).isEqualTo(home);
+	}
+
+	private static KeyEvent key(EventType<KeyEvent> type, KeyCode code) {
+		return new KeyEvent(type, KeyEvent.CHAR_UNDEFINED, "", code, false, false, false, false);
+	}
+
+	@Test public void testZoomSettlesOnLadder() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		pane.setScrollMode(ScrollMode.ZOOM);
+		pane.setZoomLadder(ZoomLadder.powersOfTwo(1, 8));
+		waitForAsyncFx(5000, () -> pane.centreAt(1, 1,
+				pane.getTargetWidth() / 2, pane.getTargetHeight() / 2));
+		Point2D pivot = pane.viewportCentre();
+		Point2D pivotOnTarget = waitForAsyncFx(5000, pane::targetPointAtViewportCentre);
+		AtomicInteger finished = new AtomicInteger();
+		pane.addEventHandler(AffineEvent.CHANGE_FINISHED, e -> finished.incrementAndGet());
+
+		// a pinch settles on the nearest rung once it finishes
+		waitForAsyncFx(5000, () -> {
+			Event.fireEvent(pane, zoom(ZoomEvent.ZOOM_STARTED, 1, pivot));
+			Event.fireEvent(pane, zoom(ZoomEvent.ZOOM, 1.7, pivot));
+			assertThat(pane.getCurrentScale()).isCloseTo(1.7, EQ_OFFSET);
+			Event.fireEvent(pane, zoom(ZoomEvent.ZOOM_FINISHED, 1, pivot));
+		});
+		WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS, () -> finished.get() == 2);
+		assertThat(pane.getCurrentScale()).isEqualTo(2d);
+
+		// wheel notches step through the rungs, even while still animating
+		waitForAsyncFx(5000, () -> {
+			Event.fireEvent(pane, scroll(40, pivot));
+			Event.fireEvent(pane, scroll(40, pivot));
+		});
+		WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS, () -> finished.get() == 3);
+		assertThat(pane.getCurrentScale()).isEqualTo(8d);
+		waitForAsyncFx(5000, () -> Event.fireEvent(pane, scroll(-40, pivot)));
+		WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS, () -> finished.get() == 4);
+		assertThat(pane.getCurrentScale()).isEqualTo(4d);
+		// zoomed about the pivot throughout
+		Point2D moved = pane.viewportPointAt(pivotOnTarget);
+		assertThat(moved.getX()).isCloseTo(pivot.getX(), EQ_OFFSET);
+		assertThat(moved.getY()).isCloseTo(pivot.getY(), EQ_OFFSET);
+	}
+
+	private ZoomEvent zoom(EventType<ZoomEvent> type, double factor, Point2D at) {
+		Point2D scene = pane.localToScene(at);
+		return new ZoomEvent(type, scene.getX(), scene.getY(), scene.getX(), scene.getY(),
+				false, false, false, false, false, false, factor, factor, null);
+	}
+
+	private ScrollEvent scroll(double deltaY, Point2D at) {
+		return scroll(ScrollEvent.SCROLL, deltaY, at);
+	}
+
+	private ScrollEvent scroll(EventType<ScrollEvent> type, double deltaY, Point2D at) {
+		Point2D scene = pane.localToScene(at);
+		return new ScrollEvent(type, scene.getX(), scene.getY(),
+				scene.getX(), scene.getY(), false, false, false, false, false, false,
+				0, deltaY, 0, deltaY, ScrollEvent.HorizontalTextScrollUnits.NONE, 0,
+				ScrollEvent.VerticalTextScrollUnits.NONE, 0, 0, null);
+	}
+
+	@Test public void testViewStatePublisher() throws Exception {
+		List<ViewState> states = new CopyOnWriteArrayList<>();
+		pane.viewStatePublisher().subscribe(new Flow.Subscriber<ViewState>() {
+			@Override public void onSubscribe(Flow.Subscription s) { s.request(Long.MAX_VALUE); }
+			@Override public void onNext(ViewState item) { states.add(item); }
+			@Override public void onError(Throwable throwable) { }
+			@Override public void onComplete() { }
+		});
+		waitForAsyncFx(5000, () -> pane.zoomTo(2, pane.targetPointAtViewportCentre()));
+		// scroll bars may still change the viewport on the following layout pass
+		WaitForAsyncUtils.waitForFxEvents();
+		ViewState expected = waitForAsyncFx(5000, pane::getViewState);
+		assertThat(expected.getScaleX()).isEqualTo(2d);
+		// delivered asynchronously, the latest state eventually arrives
+		WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS, () ->
+				!states.isEmpty() && states.get(states.size() - 1).equals(expected));
+	}
+
+	@Test public void testViewStatePublisherOfNewPane() throws Exception {
+		List<ViewState> states = new CopyOnWriteArrayList<>();
+		GesturePane created = waitForAsyncFx(5000, () -> new GesturePane());
+		created.viewStatePublisher(Runnable::run).subscribe(new Flow.Subscriber<ViewState>() {
+			@Override public void onSubscribe(Flow.Subscription s) { s.request(1); }
+			@Override public void onNext(ViewState item) { states.add(item); }
+			@Override public void onError(Throwable throwable) { }
+			@Override public void onComplete() { }
+		});
+		// nothing was published yet, the state at construction is delivered
+		assertThat(states).containsExactly(waitForAsyncFx(5000, created::getViewState));
+	}
+
+	@Test public void testDevicePixelsPerUnitFollowsRenderScale() throws Exception {
+		List<double[]> outputScales = new CopyOnWriteArrayList<>();
+		waitForAsyncFx(5000, () -> {
+			pane.setTarget(new Transformable() {
+				@Override public double width() { return 2048; }
+				@Override public double height() { return 2048; }
+				@Override public void outputScaleChanged(double x, double y) {
+					outputScales.add(new double[]{x, y});
+				}
+			});
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(outputScales).hasSize(1);
+		waitForAsyncFx(5000, () -> pane.zoomTo(3, pane.targetPointAtViewportCentre()));
+		assertThat(pane.getDevicePixelsPerUnitX()).isEqualTo(3 * pane.getOutputScaleX());
+
+		// e.g. the window moved to a 200% x 150% screen
+		Window window = pane.getScene().getWindow();
+		waitForAsyncFx(5000, () -> {
+			window.setRenderScaleX(2);
+			window.setRenderScaleY(1.5);
+		});
+		try {
+			assertThat(pane.getOutputScaleX()).isEqualTo(2d);
+			assertThat(pane.getOutputScaleY()).isEqualTo(1.5);
+			assertThat(pane.getDevicePixelsPerUnitX()).isEqualTo(6d);
+			assertThat(pane.getDevicePixelsPerUnitY()).isEqualTo(4.5);
+			assertThat(outputScales).last().isEqualTo(new double[]{2, 1.5});
+			waitForAsyncFx(5000, () -> pane.zoomTo(4, pane.targetPointAtViewportCentre()));
+			assertThat(pane.getDevicePixelsPerUnitX()).isEqualTo(8d);
+			// scaling the pane itself counts too
+			waitForAsyncFx(5000, () -> pane.setScaleX(0.5));
+			assertThat(pane.getOutputScaleX()).isEqualTo(1d);
+			assertThat(pane.getDevicePixelsPerUnitX()).isEqualTo(4d);
+		} finally {
+			// the primary stage is shared by all tests
+			waitForAsyncFx(5000, () -> {
+				window.setRenderScaleX(1);
+				window.setRenderScaleY(1);
+			});
+		}
+	}
+
+	@Test public void testTransformableReceivesViewDeltas() throws Exception {
+		List<ViewDelta> deltas = new CopyOnWriteArrayList<>();
+		waitForAsyncFx(5000, () -> {
+			pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+			pane.setTarget(new Transformable() {
+				@Override public double width() { return 2048; }
+				@Override public double height() { return 2048; }
+				@Override public void viewChanged(ViewDelta delta) { deltas.add(delta); }
+			});
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		waitForAsyncFx(5000, () -> {
+			pane.zoomTo(1, new Point2D(1024, 1024));
+			pane.centreOn(new Point2D(1024, 1024));
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		deltas.clear();
+
+		// both translations are delivered as one delta with the strip on the right exposed
+		waitForAsyncFx(5000, () -> {
+			pane.translateBy(new Dimension2D(10, 0));
+			pane.translateBy(new Dimension2D(10, 0));
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(deltas).hasSize(1);
+		ViewDelta translate = deltas.get(0);
+		assertThat(translate.getKind()).isEqualTo(ViewDelta.Kind.TRANSLATE);
+		assertThat(translate.getTranslateX()).isCloseTo(-20, EQ_OFFSET);
+		assertThat(translate.getExposedRegions()).containsExactly(new Rectangle2D(
+				pane.getViewportWidth() - 20, 0, 20, pane.getViewportHeight()));
+
+		deltas.clear();
+		waitForAsyncFx(5000, () -> pane.zoomTo(2, pane.targetPointAtViewportCentre()));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(deltas).hasSize(1);
+		ViewDelta scale = deltas.get(0);
+		assertThat(scale.getKind()).isEqualTo(ViewDelta.Kind.SCALE);
+		assertThat(scale.getPivot().getX()).isCloseTo(pane.getViewportWidth() / 2, EQ_OFFSET);
+		assertThat(scale.getPivot().getY()).isCloseTo(pane.getViewportHeight() / 2, EQ_OFFSET);
+		assertThat(scale.getExposedRegions()).hasSize(1);
+	}
+
+	@Test public void testAnimationRetargeted() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.NEVER);
+		Runnable first = mock(Runnable.class);
+		Runnable second = mock(Runnable.class);
+		List<AffineEvent> events = new CopyOnWriteArrayList<>();
+		pane.addEventHandler(AffineEvent.ANY, events::add);
+		pane.animate(Duration.millis(300)).afterFinished(first)
+				.zoomTo(4, pane.targetPointAtViewportCentre());
+		Thread.sleep(100);
+		double midway = pane.getCurrentScale();
+		pane.animate(Duration.millis(200)).interpolateWith(Interpolator.EASE_BOTH)
+				.afterFinished(second)
+				.zoomTo(2, pane.targetPointAtViewportCentre());
+		verify(second, timeout(1000)).run();
+		WaitForAsyncUtils.waitForFxEvents();
+		verify(first, timeout(200).times(0)).run();
+		assertThat(midway).isGreaterThan(1).isLessThan(4);
+		assertThat(pane.getCurrentScale()).isEqualTo(2d);
+		// one continuous change for both animations
+		assertThat(events.stream().filter(e -> e.getEventType() == AffineEvent.CHANGE_STARTED))
+				.hasSize(1);
+		assertThat(events.stream().filter(e -> e.getEventType() == AffineEvent.CHANGE_FINISHED))
+				.hasSize(1);
+		assertThat(events.stream().filter(e -> e.getEventType() == AffineEvent.CHANGED))
+				.isNotEmpty();
+	}
+
+	@Test public void testAnimationFrameNotifiesOnce() throws Exception {
+		AtomicInteger frames = new AtomicInteger();
+		AtomicInteger viewports = new AtomicInteger();
+		AtomicInteger scrollbars = new AtomicInteger();
+		AtomicInteger changes = new AtomicInteger();
+		AnimationTimer timer = new AnimationTimer() {
+			@Override public void handle(long now) { frames.incrementAndGet(); }
+		};
+		Runnable finished = mock(Runnable.class);
+		waitForAsyncFx(5000, () -> {
+			pane.targetViewportProperty().addListener((o, p, n) -> viewports.incrementAndGet());
+			pane.lookupAll(".scroll-bar").forEach(n -> ((ScrollBar) n).valueProperty()
+					.addListener((o, p, v) -> scrollbars.incrementAndGet()));
+			pane.addEventHandler(AffineEvent.CHANGED, e -> changes.incrementAndGet());
+			timer.start();
+			pane.animate(Duration.millis(300)).afterFinished(finished)
+					.zoomTo(4, pane.targetPointAtViewportCentre());
+		});
+		verify(finished, timeout(1000)).run();
+		waitForAsyncFx(5000, timer::stop);
+		// every frame commits the transform once, so every listener runs at most once a frame
+		int frame = frames.get() + 1;
+		assertThat(frames.get()).isPositive();
+		assertThat(viewports.get()).isLessThanOrEqualTo(frame);
+		assertThat(scrollbars.get()).isLessThanOrEqualTo(frame * 2);
+		assertThat(changes.get()).isLessThanOrEqualTo(frame);
+	}
+
+	@Test public void testCommitNotifiesLessThanPerPropertyWrites() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.ALWAYS);
+		int frames = 10;
+		AtomicInteger viewports = new AtomicInteger();
+		AtomicInteger scrollbars = new AtomicInteger();
+		AtomicInteger changes = new AtomicInteger();
+		int[][] counts = waitForAsyncFx(5000, () -> {
+			pane.targetViewportProperty().addListener((o, p, n) -> viewports.incrementAndGet());
+			pane.lookupAll(".scroll-bar").forEach(n -> ((ScrollBar) n).valueProperty()
+					.addListener((o, p, v) -> scrollbars.incrementAndGet()));
+			pane.addEventHandler(AffineEvent.CHANGED, e -> changes.incrementAndGet());
+			int[][] result = new int[2][];
+			for (int path = 0; path < 2; path++) {
+				pane.centreAt(1, 1, pane.getTargetWidth() / 2, pane.getTargetHeight() / 2);
+				viewports.set(0);
+				scrollbars.set(0);
+				changes.set(0);
+				// the frames of a zoom towards the top left
+				for (int i = 1; i <= frames; i++) {
+					double scale = 1 + i / 2.0;
+					double t = -i * 10;
+					if (path == 0) {
+						// how frames were written before commit(), one property at a time
+						pane.affine.setTx(t);
+						pane.affine.setTy(t);
+						pane.scaleX.set(scale);
+						pane.scaleY.set(scale);
+					} else pane.commit(scale, scale, t, t, true);
+				}
+				result[path] = new int[]{viewports.get(), scrollbars.get(), changes.get()};
+			}
+			return result;
+		});
+		int[] properties = counts[0];
+		int[] committed = counts[1];
+		assertThat(committed[0]).isEqualTo(frames);
+		assertThat(committed[1]).isLessThanOrEqualTo(frames * 2);
+		assertThat(committed[2]).isEqualTo(frames);
+		assertThat(properties[0]).isGreaterThan(committed[0]);
+		assertThat(properties[1]).isGreaterThan(committed[1]);
+		assertThat(properties[2]).isGreaterThan(committed[2]);
+	}
+
+	@Test public void testScrollBarDragCommittedOncePerPulse() throws Exception {
+		pane.setScrollBarPolicy(ScrollBarPolicy.ALWAYS);
+		waitForAsyncFx(5000, () -> pane.centreAt(4, 4,
+				pane.getTargetWidth() / 2, pane.getTargetHeight() / 2));
+		WaitForAsyncUtils.waitForFxEvents();
+		ScrollBar hbar = (ScrollBar) pane.lookupAll(".scroll-bar").stream()
+				.filter(n -> ((ScrollBar) n).getOrientation() == HORIZONTAL)
+				.findFirst().orElseThrow(AssertionError::new);
+		AtomicInteger values = new AtomicInteger();
+		AtomicInteger translations = new AtomicInteger();
+		AtomicInteger changes = new AtomicInteger();
+		AtomicInteger drags = new AtomicInteger();
+		waitForAsyncFx(5000, () -> {
+			hbar.valueProperty().addListener(o -> values.incrementAndGet());
+			pane.affine.txProperty().addListener(o -> translations.incrementAndGet());
+			pane.addEventHandler(AffineEvent.CHANGED, e -> changes.incrementAndGet());
+			hbar.addEventFilter(MouseEvent.MOUSE_DRAGGED, e -> drags.incrementAndGet());
+		});
+		FxRobot robot = new FxRobot();
+		robot.moveTo(hbar.lookup(".thumb")).press(MouseButton.PRIMARY);
+		double tx = pane.affine.getTx();
+		double value = hbar.getValue() - 50;
+		waitForAsyncFx(5000, () -> {
+			// several drag steps within one frame
+			for (int i = 10; i >= 0; i--) hbar.setValue(value - i);
+			assertThat(pane.affine.getTx()).isEqualTo(tx);
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(pane.affine.getTx()).isEqualTo(hbar.getMin() - value);
+		assertThat(changes.get()).isEqualTo(1);
+		assertThat(values.get()).isEqualTo(11);
+		for (int i = 0; i < 5; i++) robot.moveBy(-5, 0);
+		robot.release(MouseButton.PRIMARY);
+		WaitForAsyncUtils.waitForFxEvents();
+		// no feedback from the transform to the scrollbar and back, the scrollbar value changes
+		// once per drag event and the transform at most once
+		int events = drags.get() + 11;
+		assertThat(values.get()).isLessThanOrEqualTo(events);
+		assertThat(translations.get()).isLessThanOrEqualTo(events);
+		assertThat(changes.get()).isLessThanOrEqualTo(drags.get() + 1);
+		assertThat(pane.affine.getTx()).isEqualTo(hbar.getMin() - hbar.getValue());
+	}
+
 	@Test public void no() {
 	}
 
@@ -0,0 +1,116 @@
+package net.kurobako.gesturefx;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.testfx.api.FxRobot;
+import org.testfx.api.FxToolkit;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+import javafx.geometry.VerticalDirection;
+import javafx.scene.input.MouseButton;
+import javafx.scene.shape.Rectangle;
+
+import static net.kurobako.gesturefx.GesturePaneTests.HANDLER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.testfx.util.WaitForAsyncUtils.waitForAsyncFx;
+
+public class GestureRecorderTest {
+
+	@BeforeClass public static void setupClass() { GesturePaneTests.setupProperties(); }
+
+	private GesturePane pane;
+	private GestureRecorder recorder;
+	private ViewState recorded;
+
+	@Before public void setup() throws Exception {
+		if (Platform.isFxApplicationThread()) throw new AssertionError("Invalid test state");
+		Thread.setDefaultUncaughtExceptionHandler(HANDLER);
+		FxToolkit.registerPrimaryStage();
+		FxToolkit.setupSceneRoot(() -> {
+			Thread.currentThread().setUncaughtExceptionHandler(HANDLER);
+			pane = new GesturePane(new Rectangle(1000, 1000));
+			pane.setScrollBarPolicy(GesturePane.ScrollBarPolicy.NEVER);
+			pane.setPrefSize(200, 200);
+			return pane;
+		});
+		FxToolkit.setupStage(stage -> stage.sizeToScene());
+		FxToolkit.showStage();
+		waitForAsyncFx(5000, this::resetView);
+		recorder = new GestureRecorder();
+		waitForAsyncFx(5000, () -> recorder.attach(pane));
+		new FxRobot().moveTo(pane)
+				.drag(MouseButton.PRIMARY).dropBy(40, 30)
+				.scroll(3, VerticalDirection.UP);
+		WaitForAsyncUtils.waitForFxEvents();
+		waitForAsyncFx(5000, () -> recorder.detach());
+		recorded = waitForAsyncFx(5000, pane::getViewState);
+		waitForAsyncFx(5000, this::resetView);
+	}
+
+	private void resetView() { pane.centreAt(1, 1, 500, 500); }
+
+	@After public void tearDown() throws Exception { FxToolkit.cleanupStages(); }
+
+	@Test public void testReplayReproducesView() {
+		GestureLog log = GestureLog.fromBytes(recorder.toLog().toByteArray());
+		assertThat(log.getEventCount()).isEqualTo(recorder.getEventCount()).isGreaterThan(3);
+		assertThat(recorded).isNotEqualTo(waitForAsyncFx(5000, pane::getViewState));
+		waitForAsyncFx(5000, () -> log.replay(pane));
+		assertThat(waitForAsyncFx(5000, pane::getViewState)).isEqualTo(recorded);
+		// deterministic
+		waitForAsyncFx(5000, this::resetView);
+		waitForAsyncFx(5000, () -> log.replay(pane));
+		assertThat(waitForAsyncFx(5000, pane::getViewState)).isEqualTo(recorded);
+	}
+
+	@Test public void testPlayWithRecordedTiming() throws Exception {
+		GestureLog log = recorder.toLog();
+		CountDownLatch finished = new CountDownLatch(1);
+		long start = System.nanoTime();
+		waitForAsyncFx(5000, () -> log.play(pane, finished::countDown));
+		assertThat(finished.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(log.getDurationNanos());
+		assertThat(waitForAsyncFx(5000, pane::getViewState)).isEqualTo(recorded);
+	}
+
+	@Test public void testPlayReportsFrameCosts() throws Exception {
+		GestureLog log = recorder.toLog();
+		List<Long> frames = new CopyOnWriteArrayList<>();
+		CountDownLatch finished = new CountDownLatch(1);
+		long start = System.nanoTime();
+		waitForAsyncFx(5000, () -> log.play(pane, frames::add, finished::countDown));
+		assertThat(finished.await(10, TimeUnit.SECONDS)).isTrue();
+		long elapsed = System.nanoTime() - start;
+		assertThat(frames).isNotEmpty().allSatisfy(nanos -> assertThat(nanos).isPositive());
+		// consecutive frames, from the first pulse of the playback to the one after the last event
+		assertThat(frames.stream().mapToLong(Long::longValue).sum())
+				.isGreaterThanOrEqualTo(log.getDurationNanos())
+				.isLessThanOrEqualTo(elapsed);
+		assertThat(waitForAsyncFx(5000, pane::getViewState)).isEqualTo(recorded);
+	}
+
+	@Test public void testInvalidLogRejected() {
+		byte[] bytes = recorder.toLog().toByteArray();
+		assertThatThrownBy(() -> GestureLog.fromBytes(new byte[]{1, 2, 3}))
+				.isInstanceOf(IllegalArgumentException.class);
+		byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+		assertThatThrownBy(() -> GestureLog.fromBytes(truncated))
+				.isInstanceOf(IllegalArgumentException.class);
+		// the first event is the press of the drag, its button is out of range
+		byte[] corrupt = bytes.clone();
+		corrupt[GestureLog.HEADER + 14] = 42;
+		assertThatThrownBy(() -> GestureLog.fromBytes(corrupt))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("mouse button");
+	}
+}
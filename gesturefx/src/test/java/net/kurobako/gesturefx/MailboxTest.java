@@ -0,0 +1,51 @@
+package net.kurobako.gesturefx;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MailboxTest {
+
+	@Test public void testKeepsLatest() {
+		Mailbox<String> mailbox = new Mailbox<>();
+		assertThat(mailbox.take()).isNull();
+		assertThat(mailbox.post("a")).isTrue();
+		assertThat(mailbox.post("b")).isFalse();
+		assertThat(mailbox.take()).isEqualTo("b");
+		assertThat(mailbox.take()).isNull();
+		assertThat(mailbox.postedCount()).isEqualTo(2);
+		assertThat(mailbox.droppedCount()).isEqualTo(1);
+	}
+
+	@Test public void testCountsAcrossThreads() throws InterruptedException {
+		Mailbox<Integer> mailbox = new Mailbox<>();
+		AtomicBoolean done = new AtomicBoolean(false);
+		AtomicLong taken = new AtomicLong();
+		Thread consumer = new Thread(() -> {
+			while (!done.get()) {
+				if (mailbox.take() != null) taken.incrementAndGet();
+			}
+		});
+		consumer.start();
+		List<Thread> producers = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Thread producer = new Thread(() -> {
+				for (int n = 0; n < 10_000; n++) mailbox.post(n);
+			});
+			producers.add(producer);
+			producer.start();
+		}
+		for (Thread producer : producers) producer.join();
+		done.set(true);
+		consumer.join();
+		if (mailbox.take() != null) taken.incrementAndGet();
+		// every post is either taken or dropped, never both
+		assertThat(mailbox.postedCount()).isEqualTo(40_000);
+		assertThat(taken.get() + mailbox.droppedCount()).isEqualTo(40_000);
+	}
+}
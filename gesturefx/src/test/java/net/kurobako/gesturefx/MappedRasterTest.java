@@ -0,0 +1,164 @@
+package net.kurobako.gesturefx;
+
+import net.kurobako.gesturefx.MappedRaster.Format;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.testfx.api.FxToolkit;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javafx.application.Platform;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.PixelReader;
+import javafx.scene.layout.StackPane;
+
+import static net.kurobako.gesturefx.GesturePaneTests.HANDLER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testfx.util.WaitForAsyncUtils.waitForAsyncFx;
+
+public class MappedRasterTest {
+
+	@BeforeClass public static void setupClass() { GesturePaneTests.setupProperties(); }
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	private GesturePane pane;
+	private MappedRaster raster;
+
+	// every pixel encodes its own coordinate so the uploaded region can be verified
+	private Path write(Format format, int width, int height) throws IOException {
+		byte[] bytes = new byte[16 + width * height * format.bytesPerPixel];
+		int i = 16;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				switch (format) {
+					case GRAY:
+						bytes[i++] = (byte) (x + y);
+						break;
+					case RGB:
+						bytes[i++] = (byte) x;
+						bytes[i++] = (byte) y;
+						bytes[i++] = 0;
+						break;
+					case BGRA:
+						bytes[i++] = 0;
+						bytes[i++] = (byte) y;
+						bytes[i++] = (byte) x;
+						bytes[i++] = (byte) 0xFF;
+						break;
+				}
+			}
+		}
+		Path path = folder.newFile().toPath();
+		Files.write(path, bytes);
+		return path;
+	}
+
+	private void show(Format format) throws Exception {
+		Path path = write(format, 256, 128);
+		FxToolkit.setupSceneRoot(() -> {
+			Thread.currentThread().setUncaughtExceptionHandler(HANDLER);
+			try {
+				raster = MappedRaster.open(path, 16, 256, 128, format);
+			} catch (IOException e) {
+				throw new AssertionError(e);
+			}
+			pane = new GesturePane();
+			pane.setScrollBarPolicy(GesturePane.ScrollBarPolicy.NEVER);
+			raster.attach(pane);
+			StackPane root = new StackPane(raster.getView(), pane);
+			root.setPrefSize(64, 64);
+			return root;
+		});
+		FxToolkit.setupStage(stage -> stage.sizeToScene());
+		FxToolkit.showStage();
+		WaitForAsyncUtils.waitForFxEvents();
+	}
+
+	@Before public void setup() throws Exception {
+		if (Platform.isFxApplicationThread()) throw new AssertionError("Invalid test state");
+		Thread.setDefaultUncaughtExceptionHandler(HANDLER);
+		FxToolkit.registerPrimaryStage();
+	}
+
+	@After public void tearDown() throws Exception { FxToolkit.cleanupStages(); }
+
+	@Test public void testSubsampledWhenZoomedOut() throws Exception {
+		show(Format.GRAY);
+		waitForAsyncFx(5000, () -> {
+			pane.setMinScale(0.1);
+			pane.zoomTo(0.25, Point2D.ZERO);
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		// 256x128 fits 64x64 at 0.25 so every 4th pixel is read
+		assertThat(pane.getCurrentScale()).isEqualTo(0.25);
+		Rectangle2D region = raster.getImageViewport();
+		assertThat(region.getWidth()).isEqualTo(64);
+		assertThat(region.getHeight()).isEqualTo(32);
+		PixelReader reader = raster.getImage().getPixelReader();
+		assertThat(reader.getArgb(10, 5) & 0xFF).isEqualTo((40 + 20) & 0xFF);
+		assertThat(reader.getArgb(63, 31) & 0xFF).isEqualTo((252 + 124) & 0xFF);
+	}
+
+	@Test public void testOnlyVisibleRegionUploaded() throws Exception {
+		show(Format.BGRA);
+		waitForAsyncFx(5000, () -> pane.zoomTo(2, new Point2D(100, 60)));
+		WaitForAsyncUtils.waitForFxEvents();
+		// 64x64 viewport at 2x shows 32x32 target pixels at full resolution
+		Rectangle2D region = raster.getImageViewport();
+		assertThat(region.getWidth()).isBetween(32d, 33d);
+		assertThat(region.getHeight()).isBetween(32d, 33d);
+		int minX = (int) Math.floor(pane.getTargetViewport().getMinX());
+		int minY = (int) Math.floor(pane.getTargetViewport().getMinY());
+		PixelReader reader = raster.getImage().getPixelReader();
+		int argb = reader.getArgb(3, 7);
+		assertThat((argb >> 16) & 0xFF).isEqualTo(minX + 3);
+		assertThat((argb >> 8) & 0xFF).isEqualTo(minY + 7);
+	}
+
+	@Test public void testImageReusedWhilePanning() throws Exception {
+		show(Format.RGB);
+		waitForAsyncFx(5000, () -> pane.zoomTo(2, new Point2D(100, 60)));
+		WaitForAsyncUtils.waitForFxEvents();
+		Object image = raster.getImage();
+		waitForAsyncFx(5000, () -> pane.centreOn(new Point2D(150, 80)));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(raster.getImage()).isSameAs(image);
+		int minX = (int) Math.floor(pane.getTargetViewport().getMinX());
+		int argb = raster.getImage().getPixelReader().getArgb(0, 0);
+		assertThat((argb >> 16) & 0xFF).isEqualTo(minX);
+	}
+
+	@Test public void testChangesWithinPulseUploadedOnce() throws Exception {
+		show(Format.RGB);
+		waitForAsyncFx(5000, () -> pane.zoomTo(2, new Point2D(100, 60)));
+		WaitForAsyncUtils.waitForFxEvents();
+		int renders = raster.getRenderCount();
+		waitForAsyncFx(5000, () -> {
+			// each write changes the target viewport on its own
+			pane.affine.setTx(pane.affine.getTx() - 10);
+			pane.affine.setTy(pane.affine.getTy() - 10);
+			pane.translateBy(new Dimension2D(4, 4));
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(raster.getRenderCount()).isEqualTo(renders + 1);
+		int minX = (int) Math.floor(pane.getTargetViewport().getMinX());
+		int argb = raster.getImage().getPixelReader().getArgb(0, 0);
+		assertThat((argb >> 16) & 0xFF).isEqualTo(minX);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFileTooSmall() throws Exception {
+		MappedRaster.open(write(Format.GRAY, 16, 16), 16, 16, 17, Format.GRAY);
+	}
+}
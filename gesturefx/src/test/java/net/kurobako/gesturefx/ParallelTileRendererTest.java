@@ -0,0 +1,75 @@
+package net.kurobako.gesturefx;
+
+import org.junit.Test;
+
+import java.nio.IntBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelTileRendererTest {
+
+	private static final ViewState STATE = new ViewState(1, 1, 0, 0, 100, 70, 100, 70);
+
+	@Test public void testRendersEveryPixelOnce() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Set<String> tiles = ConcurrentHashMap.newKeySet();
+			ParallelTileRenderer renderer = new ParallelTileRenderer(
+					(pixels, stride, x, y, width, height, state) -> {
+						assertThat(tiles.add(x + "," + y)).isTrue();
+						for (int row = y; row < y + height; row++)
+							for (int col = x; col < x + width; col++)
+								pixels.put(row * stride + col, pixels.get(row * stride + col) + 1);
+					}, pool, 32);
+			IntBuffer pixels = IntBuffer.allocate(100 * 70);
+			renderer.render(pixels, 100, 70, STATE);
+			// 100x70 in 32x32 tiles is 4 columns and 3 rows, the last ones are partial
+			assertThat(tiles).hasSize(12);
+			for (int i = 0; i < 100 * 70; i++) assertThat(pixels.get(i)).isEqualTo(1);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test public void testCancelSkipsRemainingTiles() {
+		ForkJoinPool pool = new ForkJoinPool(1);
+		try {
+			AtomicInteger rendered = new AtomicInteger();
+			AtomicBoolean cancelled = new AtomicBoolean();
+			ParallelTileRenderer[] renderer = new ParallelTileRenderer[1];
+			renderer[0] = new ParallelTileRenderer((pixels, stride, x, y, width, height, state) -> {
+				rendered.incrementAndGet();
+				cancelled.set(true);
+				assertThat(renderer[0].isCancelled()).isTrue();
+			}, pool, 10);
+			renderer[0].render(IntBuffer.allocate(100 * 70), 100, 70, STATE, cancelled::get);
+			assertThat(rendered.get()).isEqualTo(1);
+			assertThat(renderer[0].isCancelled()).isFalse();
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test public void testCancelBeforeStartSkipsAllTiles() {
+		ForkJoinPool pool = new ForkJoinPool(1);
+		try {
+			AtomicInteger rendered = new AtomicInteger();
+			ParallelTileRenderer renderer = new ParallelTileRenderer(
+					(pixels, stride, x, y, width, height, state) -> rendered.incrementAndGet(),
+					pool, 10);
+			// the frame became stale after it was submitted but before it started
+			renderer.render(IntBuffer.allocate(100 * 70), 100, 70, STATE, () -> true);
+			assertThat(rendered.get()).isZero();
+			// frames are cancelled independently
+			renderer.render(IntBuffer.allocate(100 * 70), 100, 70, STATE, () -> false);
+			assertThat(rendered.get()).isEqualTo(70);
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
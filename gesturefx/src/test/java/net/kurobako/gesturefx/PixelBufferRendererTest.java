@@ -0,0 +1,148 @@
+package net.kurobako.gesturefx;
+
+import org.assertj.core.data.Offset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.testfx.api.FxToolkit;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+import javafx.geometry.Point2D;
+import javafx.scene.layout.StackPane;
+import javafx.scene.shape.Rectangle;
+
+import static net.kurobako.gesturefx.GesturePaneTests.HANDLER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testfx.util.WaitForAsyncUtils.waitForAsyncFx;
+
+public class PixelBufferRendererTest {
+
+	@BeforeClass public static void setupClass() { GesturePaneTests.setupProperties(); }
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+	private final List<ViewState> frames = new CopyOnWriteArrayList<>();
+	private final List<Thread> threads = new CopyOnWriteArrayList<>();
+	private GesturePane pane;
+	private PixelBufferRenderer renderer;
+	// each frame rendered takes the next gate, if any, and waits for it to open
+	private final ConcurrentLinkedQueue<CountDownLatch> gates = new ConcurrentLinkedQueue<>();
+
+	@Before public void setup() throws Exception {
+		if (Platform.isFxApplicationThread()) throw new AssertionError("Invalid test state");
+		Thread.setDefaultUncaughtExceptionHandler(HANDLER);
+		FxToolkit.registerPrimaryStage();
+		FxToolkit.setupSceneRoot(() -> {
+			Thread.currentThread().setUncaughtExceptionHandler(HANDLER);
+			// fills the frame with a colour derived from the scale of the view
+			renderer = new PixelBufferRenderer((pixels, width, height, state) -> {
+				threads.add(Thread.currentThread());
+				CountDownLatch gate = gates.poll();
+				try {
+					if (gate != null) gate.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				int colour = 0xFF000000 | (int) (state.getScaleX() * 10);
+				for (int i = 0; i < width * height; i++) pixels.put(i, colour);
+				frames.add(state);
+			}, executor, false);
+			pane = new GesturePane(new Rectangle(256, 256));
+			pane.setScrollBarPolicy(GesturePane.ScrollBarPolicy.NEVER);
+			renderer.attach(pane);
+			StackPane root = new StackPane(renderer.getView(), pane);
+			root.setPrefSize(64, 64);
+			return root;
+		});
+		FxToolkit.setupStage(stage -> stage.sizeToScene());
+		FxToolkit.showStage();
+		awaitFrame(1);
+	}
+
+	@After public void tearDown() throws Exception {
+		FxToolkit.cleanupStages();
+		executor.shutdownNow();
+	}
+
+	private void awaitFrame(double scale) throws Exception {
+		WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS, () -> renderer.getImage() != null &&
+				(renderer.getImage().getPixelReader().getArgb(0, 0) & 0xFF) == (int) (scale * 10));
+		WaitForAsyncUtils.waitForFxEvents();
+	}
+
+	@Test public void testRendersOnWorker() {
+		assertThat(frames).isNotEmpty();
+		assertThat(threads).doesNotContain(Thread.currentThread());
+		assertThat(renderer.getImage().getWidth()).isEqualTo(64);
+	}
+
+	@Test public void testBuffersReusedWhenViewChanges() throws Exception {
+		int allocations = renderer.getAllocationCount();
+		for (int i = 2; i <= 6; i++) {
+			double scale = i;
+			waitForAsyncFx(5000, () -> pane.zoomTo(scale, new Point2D(128, 128)));
+			awaitFrame(scale);
+		}
+		// only the second buffer of the pair is allocated after the first frame
+		assertThat(renderer.getAllocationCount()).isLessThanOrEqualTo(allocations + 1);
+	}
+
+	@Test public void testChangesWhileRenderingAreCoalesced() throws Exception {
+		int before = frames.size();
+		waitForAsyncFx(5000, () -> {
+			for (int i = 2; i <= 50; i++) pane.zoomTo(1 + i / 10.0, new Point2D(128, 128));
+		});
+		awaitFrame(6);
+		assertThat(frames.size() - before).isLessThan(49);
+		assertThat(frames.get(frames.size() - 1).getScaleX()).isCloseTo(6, Offset.offset(1e-6));
+	}
+
+	@Test public void testReattachWhileRenderingKeepsRendering() throws Exception {
+		CountDownLatch previous = new CountDownLatch(1);
+		CountDownLatch next = new CountDownLatch(1);
+		gates.add(previous);
+		gates.add(next);
+		waitForAsyncFx(5000, () -> {
+			pane.zoomTo(2, new Point2D(128, 128));
+			// the frame for scale 2 is still rendering when the renderer moves on
+			renderer.detach();
+			renderer.attach(pane);
+		});
+		// the frame of the previous attachment finishes while the new one is still rendering
+		previous.countDown();
+		WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS, () -> gates.isEmpty());
+		WaitForAsyncUtils.waitForFxEvents();
+		next.countDown();
+		awaitFrame(2);
+		waitForAsyncFx(5000, () -> pane.zoomTo(3, new Point2D(128, 128)));
+		awaitFrame(3);
+	}
+
+	@Test public void testProgressiveRefinement() throws Exception {
+		waitForAsyncFx(5000, () -> {
+			renderer.setProgressive(true);
+			pane.fireAffineEvent(AffineEvent.CHANGE_STARTED);
+			pane.translate(-10, -10);
+		});
+		WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS, () ->
+				frames.get(frames.size() - 1).getViewportWidth() == 16);
+		int before = frames.size();
+		waitForAsyncFx(5000, () -> pane.fireAffineEvent(AffineEvent.CHANGE_FINISHED));
+		WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS, () ->
+				frames.get(frames.size() - 1).getViewportWidth() == 64);
+		// a quarter during the change, then half and full once it finished
+		assertThat(frames.subList(before, frames.size()))
+				.extracting(ViewState::getViewportWidth)
+				.containsExactly(32d, 64d);
+		assertThat(renderer.getImage().getWidth()).isEqualTo(64);
+	}
+}
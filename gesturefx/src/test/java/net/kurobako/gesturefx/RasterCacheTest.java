@@ -0,0 +1,122 @@
+package net.kurobako.gesturefx;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.testfx.api.FxToolkit;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+import javafx.geometry.Point2D;
+import javafx.scene.shape.Rectangle;
+import javafx.util.Duration;
+
+import static net.kurobako.gesturefx.GesturePaneTests.HANDLER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testfx.util.WaitForAsyncUtils.waitForAsyncFx;
+
+public class RasterCacheTest {
+
+	@BeforeClass public static void setupClass() { GesturePaneTests.setupProperties(); }
+
+	private final Rectangle content = new Rectangle(200, 100);
+	private GesturePane pane;
+	private RasterCache cache;
+
+	@Before public void setup() throws Exception {
+		if (Platform.isFxApplicationThread()) throw new AssertionError("Invalid test state");
+		Thread.setDefaultUncaughtExceptionHandler(HANDLER);
+		FxToolkit.registerPrimaryStage();
+		FxToolkit.setupSceneRoot(() -> {
+			Thread.currentThread().setUncaughtExceptionHandler(HANDLER);
+			cache = new RasterCache(content);
+			pane = new GesturePane(cache);
+			pane.setScrollBarPolicy(GesturePane.ScrollBarPolicy.NEVER);
+			pane.setMinScale(0.1);
+			pane.setMaxScale(50);
+			pane.setPrefSize(100, 100);
+			return pane;
+		});
+		FxToolkit.setupStage(stage -> stage.sizeToScene());
+		FxToolkit.showStage();
+		zoom(1);
+	}
+
+	@After public void tearDown() throws Exception { FxToolkit.cleanupStages(); }
+
+	private void zoom(double scale) throws Exception {
+		waitForAsyncFx(5000, () -> pane.zoomTo(scale, Point2D.ZERO));
+		WaitForAsyncUtils.waitForFxEvents();
+	}
+
+	@Test public void testBucketsArePowersOfSqrt2() {
+		assertThat(RasterCache.bucketOf(1)).isEqualTo(0);
+		assertThat(RasterCache.bucketOf(2)).isEqualTo(2);
+		assertThat(RasterCache.bucketOf(1.1)).isEqualTo(0);
+		assertThat(RasterCache.bucketOf(0.5)).isEqualTo(-2);
+		assertThat(RasterCache.bucketOf(3)).isEqualTo(3);
+	}
+
+	@Test public void testShowsRasterOfCurrentBucket() {
+		assertThat(cache.getShownBucket()).isEqualTo(0);
+		assertThat(content.isVisible()).isFalse();
+		assertThat(cache.getImage().getWidth()).isEqualTo(200);
+		assertThat(cache.getImage().getHeight()).isEqualTo(100);
+		assertThat(cache.getImage().getPixelReader().getArgb(100, 50)).isEqualTo(0xFF000000);
+	}
+
+	@Test public void testResidualZoomReusesRaster() throws Exception {
+		int rasterizations = cache.getRasterizationCount();
+		zoom(1.15);
+		assertThat(cache.getShownBucket()).isEqualTo(0);
+		assertThat(cache.getRasterizationCount()).isEqualTo(rasterizations);
+
+		// the nearest raster is shown until the new bucket is rendered on the next pulse
+		waitForAsyncFx(5000, () -> {
+			pane.zoomTo(2, Point2D.ZERO);
+			assertThat(cache.getShownBucket()).isEqualTo(0);
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(cache.getShownBucket()).isEqualTo(2);
+		assertThat(cache.getImage().getWidth()).isEqualTo(400);
+		assertThat(cache.getRasterizationCount()).isEqualTo(rasterizations + 1);
+
+		zoom(1);
+		assertThat(cache.getShownBucket()).isEqualTo(0);
+		assertThat(cache.getRasterizationCount()).isEqualTo(rasterizations + 1);
+	}
+
+	@Test public void testRasterizesOnlyOnceChangeFinished() throws Exception {
+		int rasterizations = cache.getRasterizationCount();
+		// passes the bucket of √2 on the way to 2
+		waitForAsyncFx(5000, () -> pane.animate(Duration.millis(300)).zoomTo(2, Point2D.ZERO));
+		WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS, () -> !pane.isChanging());
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(cache.getCachedBuckets()).containsExactly(0, 2);
+		assertThat(cache.getShownBucket()).isEqualTo(2);
+		assertThat(cache.getRasterizationCount()).isEqualTo(rasterizations + 1);
+	}
+
+	@Test public void testBudgetEvictsLeastRecentlyShown() throws Exception {
+		// room for the rasters at 1 and 2 but not also the one at 0.5
+		waitForAsyncFx(5000, () -> cache.setBudget((200 * 100 + 400 * 200) * 4));
+		zoom(2);
+		zoom(1);
+		assertThat(cache.getCachedBuckets()).containsExactly(2, 0);
+		zoom(0.5);
+		assertThat(cache.getCachedBuckets()).containsExactly(0, -2);
+		assertThat(cache.getCachedBytes()).isLessThanOrEqualTo(cache.getBudget());
+	}
+
+	@Test public void testShowsContentWhenRasterTooLarge() throws Exception {
+		zoom(40);
+		assertThat(cache.getShownBucket()).isNull();
+		assertThat(content.isVisible()).isTrue();
+		zoom(1);
+		assertThat(cache.getShownBucket()).isEqualTo(0);
+		assertThat(content.isVisible()).isFalse();
+	}
+}
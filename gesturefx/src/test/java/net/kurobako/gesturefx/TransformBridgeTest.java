@@ -0,0 +1,82 @@
+package net.kurobako.gesturefx;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.testfx.api.FxToolkit;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javafx.application.Platform;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Point2D;
+import javafx.scene.shape.Rectangle;
+
+import static net.kurobako.gesturefx.GesturePaneTests.HANDLER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testfx.util.WaitForAsyncUtils.waitForAsyncFx;
+
+public class TransformBridgeTest {
+
+	@BeforeClass public static void setupClass() { GesturePaneTests.setupProperties(); }
+
+	private final List<double[]> pushes = new CopyOnWriteArrayList<>();
+	private GesturePane pane;
+	private TransformBridge bridge;
+
+	@Before public void setup() throws Exception {
+		if (Platform.isFxApplicationThread()) throw new AssertionError("Invalid test state");
+		Thread.setDefaultUncaughtExceptionHandler(HANDLER);
+		FxToolkit.registerPrimaryStage();
+		FxToolkit.setupSceneRoot(() -> {
+			Thread.currentThread().setUncaughtExceptionHandler(HANDLER);
+			pane = new GesturePane(new Rectangle(1000, 1000));
+			pane.setScrollBarPolicy(GesturePane.ScrollBarPolicy.NEVER);
+			pane.setPrefSize(100, 100);
+			bridge = new TransformBridge((sx, sy, tx, ty) -> pushes.add(new double[]{sx, sy, tx, ty}));
+			bridge.attach(pane);
+			return pane;
+		});
+		FxToolkit.setupStage(stage -> stage.sizeToScene());
+		FxToolkit.showStage();
+		waitForAsyncFx(5000, () -> pane.zoomTo(1, new Point2D(500, 500)));
+		WaitForAsyncUtils.waitForFxEvents();
+		pushes.clear();
+	}
+
+	@After public void tearDown() throws Exception { FxToolkit.cleanupStages(); }
+
+	@Test public void testChangesConflatedPerPulse() {
+		waitForAsyncFx(5000, () -> {
+			for (int i = 0; i < 20; i++) pane.translateBy(new Dimension2D(5, 5));
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(pushes).hasSize(1);
+		assertThat(pushes.get(0)).containsExactly(1, 1, pane.affine.getTx(), pane.affine.getTy());
+	}
+
+	@Test public void testChangesWithinToleranceSkipped() {
+		waitForAsyncFx(5000, () -> pane.translateBy(new Dimension2D(0.01, 0)));
+		WaitForAsyncUtils.waitForFxEvents();
+		// 1.0001 moves the far edge of the 100px viewport by 0.01px
+		waitForAsyncFx(5000, () -> pane.zoomTo(1.0001, new Point2D(500, 500)));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(pushes).isEmpty();
+		waitForAsyncFx(5000, () -> pane.zoomTo(1.01, new Point2D(500, 500)));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(pushes).hasSize(1);
+	}
+
+	@Test public void testInvalidateForcesPush() {
+		waitForAsyncFx(5000, bridge::invalidate);
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(pushes).hasSize(1);
+		waitForAsyncFx(5000, bridge::detach);
+		waitForAsyncFx(5000, () -> pane.translateBy(new Dimension2D(50, 50)));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(pushes).hasSize(1);
+	}
+}
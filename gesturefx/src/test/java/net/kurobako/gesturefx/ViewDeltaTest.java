@@ -0,0 +1,56 @@
+package net.kurobako.gesturefx;
+
+import net.kurobako.gesturefx.ViewDelta.Kind;
+
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ViewDeltaTest {
+
+	private static final Offset<Double> EQ_OFFSET = Offset.offset(1e-6);
+
+	// 100x80 viewport showing a 400x400 target at 2x
+	private static final ViewState STATE = new ViewState(2, 2, -50, -40, 100, 80, 400, 400);
+
+	@Test public void testTranslationExposesStrips() {
+		ViewDelta delta = ViewDelta.between(STATE, STATE.withTransform(2, 2, -40, -45));
+		assertThat(delta.getKind()).isEqualTo(Kind.TRANSLATE);
+		assertThat(delta.getTranslateX()).isEqualTo(10d);
+		assertThat(delta.getTranslateY()).isEqualTo(-5d);
+		assertThat(delta.getPivot()).isNull();
+		// the bottom strip spans the viewport, the left one fills the rest
+		assertThat(delta.getExposedRegions()).containsExactly(
+				new Rectangle2D(0, 75, 100, 5),
+				new Rectangle2D(0, 0, 10, 75));
+		assertThat(ViewDelta.between(STATE, STATE).getExposedRegions()).isEmpty();
+		// larger than the viewport, nothing can be reused
+		assertThat(ViewDelta.between(STATE, STATE.withTransform(2, 2, -200, -40))
+				           .getExposedRegions()).containsExactly(new Rectangle2D(0, 0, 100, 80));
+	}
+
+	@Test public void testViewportGrowthExposesNewArea() {
+		ViewDelta delta = ViewDelta.between(STATE, STATE.withViewport(120, 80));
+		assertThat(delta.getKind()).isEqualTo(Kind.TRANSLATE);
+		assertThat(delta.getExposedRegions()).containsExactly(new Rectangle2D(100, 0, 20, 80));
+	}
+
+	@Test public void testScaleAboutPivot() {
+		ViewSolver solver = new ViewSolver(GesturePane.FitMode.UNBOUNDED, 0.1, 10);
+		ViewState zoomed = solver.zoomTo(STATE, 3, STATE.targetPointAt(new Point2D(30, 20)));
+		ViewDelta delta = ViewDelta.between(STATE, zoomed);
+		assertThat(delta.getKind()).isEqualTo(Kind.SCALE);
+		assertThat(delta.getScaleFactorX()).isCloseTo(1.5, EQ_OFFSET);
+		assertThat(delta.getPivot().getX()).isCloseTo(30, EQ_OFFSET);
+		assertThat(delta.getPivot().getY()).isCloseTo(20, EQ_OFFSET);
+		assertThat(delta.getExposedRegions()).containsExactly(new Rectangle2D(0, 0, 100, 80));
+		// scaling one axis while moving along the other has no single pivot
+		ViewDelta combined = ViewDelta.between(STATE, STATE.withTransform(3, 2, -50, -30));
+		assertThat(combined.getKind()).isEqualTo(Kind.COMBINED);
+		assertThat(combined.getPivot()).isNull();
+	}
+}
@@ -0,0 +1,56 @@
+package net.kurobako.gesturefx;
+
+import org.junit.Test;
+
+import static net.kurobako.gesturefx.ViewHistory.MERGE_NANOS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ViewHistoryTest {
+
+	private static final long LATER = MERGE_NANOS * 2;
+
+	private final double[] out = new double[ViewHistory.SIZE];
+
+	@Test public void testOldestOverwrittenWhenFull() {
+		ViewHistory history = new ViewHistory(3);
+		for (int i = 0; i < 5; i++) history.record(1, 1, i * 100, 0, i * LATER);
+		assertThat(history.size()).isEqualTo(3);
+		assertThat(history.back(out)).isTrue();
+		assertThat(out).containsExactly(1, 1, 300, 0);
+		assertThat(history.back(out)).isTrue();
+		assertThat(out).containsExactly(1, 1, 200, 0);
+		assertThat(history.back(out)).isFalse();
+		assertThat(history.forward(out)).isTrue();
+		assertThat(out).containsExactly(1, 1, 300, 0);
+	}
+
+	@Test public void testCloseViewsMerged() {
+		ViewHistory history = new ViewHistory(8);
+		history.anchor(1, 1, 0, 0, 0);
+		// too small to see, the start of the change is kept
+		history.record(1.01, 1.01, 1, 1, LATER);
+		assertThat(history.size()).isEqualTo(1);
+		// a burst of changes becomes one entry with the latest view
+		history.record(2, 2, 100, 100, LATER * 2);
+		history.record(2.2, 2.2, 110, 110, LATER * 2 + MERGE_NANOS / 2);
+		history.record(2.4, 2.4, 120, 120, LATER * 2 + MERGE_NANOS);
+		assertThat(history.size()).isEqualTo(2);
+		assertThat(history.back(out)).isTrue();
+		assertThat(out).containsExactly(1, 1, 0, 0);
+		assertThat(history.forward(out)).isTrue();
+		assertThat(out).containsExactly(2.4, 2.4, 120, 120);
+	}
+
+	@Test public void testRecordAfterBackDiscardsForward() {
+		ViewHistory history = new ViewHistory(8);
+		for (int i = 0; i < 3; i++) history.record(1, 1, i * 100, 0, i * LATER);
+		history.back(out);
+		history.back(out);
+		history.anchor(1, 1, 0, 0, 3 * LATER);
+		history.record(1, 1, 500, 0, 4 * LATER);
+		assertThat(history.size()).isEqualTo(2);
+		assertThat(history.canGoForward()).isFalse();
+		assertThat(history.back(out)).isTrue();
+		assertThat(out).containsExactly(1, 1, 0, 0);
+	}
+}
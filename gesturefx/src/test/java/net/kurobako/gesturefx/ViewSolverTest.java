@@ -0,0 +1,58 @@
+package net.kurobako.gesturefx;
+
+import net.kurobako.gesturefx.GesturePane.FitMode;
+
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Point2D;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ViewSolverTest {
+
+	private static final Offset<Double> EQ_OFFSET = Offset.offset(1e-6);
+
+	// 100x100 viewport showing a 400x200 target at 1x
+	private static final ViewState STATE = new ViewState(1, 1, 0, 0, 100, 100, 400, 200);
+
+	@Test public void testZoomKeepsPivot() {
+		ViewSolver solver = new ViewSolver(FitMode.UNBOUNDED, 0.5, 10);
+		Point2D pivot = new Point2D(30, 40);
+		ViewState zoomed = solver.zoomTo(STATE, 4, pivot);
+		assertThat(zoomed.getScaleX()).isEqualTo(4d);
+		Point2D before = STATE.viewportPointAt(pivot);
+		Point2D after = zoomed.viewportPointAt(pivot);
+		assertThat(after.getX()).isCloseTo(before.getX(), EQ_OFFSET);
+		assertThat(after.getY()).isCloseTo(before.getY(), EQ_OFFSET);
+		// clamped to max scale
+		assertThat(solver.zoomTo(STATE, 20, pivot).getScaleX()).isEqualTo(10d);
+	}
+
+	@Test public void testClampToFitMode() {
+		ViewSolver solver = new ViewSolver(FitMode.FIT_FILL, 0.1, 10);
+		ViewState state = solver.clamp(STATE.withTransform(2, 2, -300, -50));
+		// 400x200 fits 100x100 at 0.25 and is centred vertically
+		assertThat(state.getScaleX()).isEqualTo(0.25);
+		assertThat(state.getTranslateX()).isCloseTo(0, EQ_OFFSET);
+		assertThat(state.getTranslateY()).isCloseTo(25, EQ_OFFSET);
+		// translation past the edge of the target is bounded
+		ViewState panned = new ViewSolver(FitMode.FIT, 0.1, 10)
+				.translateBy(STATE, new Dimension2D(1000, -1000));
+		assertThat(panned.getTargetViewport().getMaxX()).isCloseTo(400, EQ_OFFSET);
+		assertThat(panned.getTargetViewport().getMinY()).isCloseTo(0, EQ_OFFSET);
+	}
+
+	@Test public void testCentreOnAndZoomToRegion() {
+		ViewSolver solver = new ViewSolver(FitMode.UNBOUNDED, 0.1, 10);
+		Point2D centre = solver.centreOn(STATE, new Point2D(200, 100)).targetPointAtViewportCentre();
+		assertThat(centre.getX()).isCloseTo(200, EQ_OFFSET);
+		assertThat(centre.getY()).isCloseTo(100, EQ_OFFSET);
+		ViewState region = solver.zoomToRegion(STATE, new BoundingBox(100, 50, 50, 25));
+		assertThat(region.getScaleX()).isEqualTo(2d);
+		assertThat(region.getTargetViewport().getMinX()).isCloseTo(100, EQ_OFFSET);
+		assertThat(region.targetPointAtViewportCentre().getY()).isCloseTo(62.5, EQ_OFFSET);
+	}
+}
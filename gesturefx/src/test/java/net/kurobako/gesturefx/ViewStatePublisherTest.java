@@ -0,0 +1,83 @@
+package net.kurobako.gesturefx;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ViewStatePublisherTest {
+
+	private static class Recorder implements Flow.Subscriber<ViewState> {
+		private final long initial;
+		final List<ViewState> states = new CopyOnWriteArrayList<>();
+		final List<Throwable> errors = new CopyOnWriteArrayList<>();
+		Flow.Subscription subscription;
+
+		Recorder(long initial) { this.initial = initial; }
+
+		@Override public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			if (initial > 0) subscription.request(initial);
+		}
+		@Override public void onNext(ViewState item) { states.add(item); }
+		@Override public void onError(Throwable throwable) { errors.add(throwable); }
+		@Override public void onComplete() { }
+	}
+
+	private static ViewStatePublisher create(double scale) {
+		return new ViewStatePublisher(new ViewState(scale, scale, 0, 0, 100, 100, 200, 200));
+	}
+
+	private static void publish(ViewStatePublisher publisher, double scale) {
+		publisher.publish(scale, scale, 0, 0, 100, 100, 200, 200);
+	}
+
+	@Test public void testConflatesToLatest() {
+		ViewStatePublisher publisher = create(1);
+		Recorder recorder = new Recorder(1);
+		publisher.on(Runnable::run).subscribe(recorder);
+		for (int i = 2; i <= 100; i++) publish(publisher, i);
+		assertThat(recorder.states).extracting(ViewState::getScaleX).containsExactly(1d);
+		recorder.subscription.request(1);
+		assertThat(recorder.states).extracting(ViewState::getScaleX).containsExactly(1d, 100d);
+		// no new state, so outstanding demand is kept until the next publish
+		recorder.subscription.request(1);
+		assertThat(recorder.states).hasSize(2);
+		publish(publisher, 101);
+		assertThat(recorder.states).extracting(ViewState::getScaleX).containsExactly(1d, 100d, 101d);
+	}
+
+	@Test public void testLateSubscriberGetsCurrentState() {
+		ViewStatePublisher publisher = create(1);
+		publish(publisher, 4);
+		Recorder recorder = new Recorder(Long.MAX_VALUE);
+		publisher.on(Runnable::run).subscribe(recorder);
+		assertThat(recorder.states).extracting(ViewState::getScaleX).containsExactly(4d);
+		recorder.subscription.cancel();
+		publish(publisher, 5);
+		assertThat(recorder.states).hasSize(1);
+	}
+
+	@Test public void testSubscriberBeforeFirstPublishGetsInitialState() {
+		ViewStatePublisher publisher = create(3);
+		Recorder recorder = new Recorder(0);
+		publisher.on(Runnable::run).subscribe(recorder);
+		assertThat(recorder.states).isEmpty();
+		recorder.subscription.request(1);
+		assertThat(recorder.states).extracting(ViewState::getScaleX).containsExactly(3d);
+		assertThat(publisher.read().getScaleX()).isEqualTo(3d);
+	}
+
+	@Test public void testInvalidRequestSignalsError() {
+		ViewStatePublisher publisher = create(1);
+		Recorder recorder = new Recorder(0);
+		publisher.on(Runnable::run).subscribe(recorder);
+		recorder.subscription.request(0);
+		assertThat(recorder.errors).singleElement().isInstanceOf(IllegalArgumentException.class);
+		publish(publisher, 1);
+		assertThat(recorder.states).isEmpty();
+	}
+}
@@ -0,0 +1,49 @@
+package net.kurobako.gesturefx;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ViewStateTest {
+
+	private static final ViewState STATE =
+			new ViewState(2.5, 0.1, -1234.5678, 1e-9, 800, 600, 1024, 768);
+
+	@Test public void testBinaryRoundTripIndependentOfByteOrder() {
+		ByteBuffer big = STATE.writeTo(ByteBuffer.allocate(ViewState.BYTES));
+		ByteBuffer little = STATE.writeTo(
+				ByteBuffer.allocate(ViewState.BYTES).order(ByteOrder.LITTLE_ENDIAN));
+		assertThat(big.position()).isEqualTo(ViewState.BYTES);
+		assertThat(little.array()).containsExactly(big.array());
+		big.flip();
+		little.flip();
+		assertThat(ViewState.readFrom(big)).isEqualTo(STATE);
+		assertThat(ViewState.readFrom(little)).isEqualTo(STATE);
+		assertThat(little.position()).isEqualTo(ViewState.BYTES);
+		assertThat(little.order()).isEqualTo(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	@Test public void testTextRoundTrip() {
+		String text = STATE.toText();
+		assertThat(text).isEqualTo("1:2.5,0.1,-1234.5678,1.0E-9,800.0,600.0,1024.0,768.0");
+		assertThat(ViewState.parse(text)).isEqualTo(STATE);
+	}
+
+	@Test public void testInvalidEncodingsRejected() {
+		ByteBuffer buffer = STATE.writeTo(ByteBuffer.allocate(ViewState.BYTES));
+		buffer.put(0, (byte) 2);
+		buffer.flip();
+		assertThatThrownBy(() -> ViewState.readFrom(buffer))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ViewState.parse("2:1,1,0,0,1,1,1,1"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ViewState.parse("1:1,1,0,0,1,1,1"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ViewState.parse("1:1,1,0,0,1,1,1,x"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,113 @@
+package net.kurobako.gesturefx;
+
+import org.assertj.core.data.Offset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.testfx.api.FxToolkit;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javafx.application.Platform;
+import javafx.geometry.Point2D;
+import javafx.scene.layout.HBox;
+import javafx.scene.shape.Rectangle;
+
+import static net.kurobako.gesturefx.GesturePaneTests.HANDLER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testfx.util.WaitForAsyncUtils.waitForAsyncFx;
+
+public class ViewportLinkTest {
+
+	private static final Offset<Double> EQ_OFFSET = Offset.offset(0.01);
+
+	@BeforeClass public static void setupClass() { GesturePaneTests.setupProperties(); }
+
+	private GesturePane left;
+	private GesturePane right;
+	private ViewportLink link;
+
+	@Before public void setup() throws Exception {
+		if (Platform.isFxApplicationThread()) throw new AssertionError("Invalid test state");
+		Thread.setDefaultUncaughtExceptionHandler(HANDLER);
+		FxToolkit.registerPrimaryStage();
+		FxToolkit.setupSceneRoot(() -> {
+			Thread.currentThread().setUncaughtExceptionHandler(HANDLER);
+			left = new GesturePane(new Rectangle(512, 512));
+			right = new GesturePane(new Rectangle(512, 512));
+			left.setPrefSize(256, 256);
+			right.setPrefSize(256, 256);
+			link = new ViewportLink();
+			return new HBox(left, right);
+		});
+		FxToolkit.setupStage(stage -> stage.sizeToScene());
+		FxToolkit.showStage();
+		WaitForAsyncUtils.waitForFxEvents();
+	}
+
+	@After public void tearDown() throws Exception { FxToolkit.cleanupStages(); }
+
+	@Test public void testChangePropagated() {
+		waitForAsyncFx(5000, () -> {
+			link.attach(left);
+			link.attach(right);
+		});
+		waitForAsyncFx(5000, () -> left.zoomTo(2, new Point2D(200, 300)));
+		waitForAsyncFx(5000, () -> left.centreOn(new Point2D(200, 300)));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(right.getCurrentScaleX()).isEqualTo(2d);
+		assertThat(right.getCurrentScaleY()).isEqualTo(2d);
+		assertThat(right.targetPointAtViewportCentre().getX()).isCloseTo(200, EQ_OFFSET);
+		assertThat(right.targetPointAtViewportCentre().getY()).isCloseTo(300, EQ_OFFSET);
+	}
+
+	@Test public void testPerAxisLink() {
+		waitForAsyncFx(5000, () -> {
+			link.attach(left);
+			link.attach(right, true, false);
+		});
+		waitForAsyncFx(5000, () -> right.centreOnY(100));
+		double y = right.targetPointAtViewportCentre().getY();
+		waitForAsyncFx(5000, () -> left.zoomTo(3, 2, new Point2D(200, 300)));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(right.getCurrentScaleX()).isEqualTo(3d);
+		assertThat(right.getCurrentScaleY()).isEqualTo(1d);
+		assertThat(right.targetPointAtViewportCentre().getY()).isCloseTo(y, EQ_OFFSET);
+	}
+
+	@Test public void testNoFeedbackAndCoalesced() {
+		AtomicInteger leftChanges = new AtomicInteger();
+		AtomicInteger rightChanges = new AtomicInteger();
+		waitForAsyncFx(5000, () -> {
+			link.attach(left);
+			link.attach(right);
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		waitForAsyncFx(5000, () -> {
+			left.addEventHandler(AffineEvent.CHANGED, e -> leftChanges.incrementAndGet());
+			right.addEventHandler(AffineEvent.CHANGED, e -> rightChanges.incrementAndGet());
+			// several changes within the same pulse
+			left.zoomTo(2, new Point2D(100, 100));
+			left.zoomTo(3, new Point2D(100, 100));
+			left.zoomTo(4, new Point2D(100, 100));
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(leftChanges).hasValue(3);
+		assertThat(rightChanges).hasValue(1);
+		assertThat(right.getCurrentScale()).isEqualTo(4d);
+	}
+
+	@Test public void testDetach() {
+		waitForAsyncFx(5000, () -> {
+			link.attach(left);
+			link.attach(right);
+			assertThat(link.detach(right)).isTrue();
+			assertThat(link.size()).isEqualTo(1);
+		});
+		waitForAsyncFx(5000, () -> left.zoomTo(2, new Point2D(100, 100)));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(right.getCurrentScale()).isEqualTo(1d);
+	}
+}
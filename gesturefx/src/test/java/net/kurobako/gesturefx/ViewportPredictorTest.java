@@ -0,0 +1,51 @@
+package net.kurobako.gesturefx;
+
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+import javafx.geometry.Bounds;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ViewportPredictorTest {
+
+	private static final Offset<Double> EQ_OFFSET = Offset.offset(1e-6);
+	private static final long FRAME = 16_000_000L;
+
+	@Test public void testExtrapolatesPan() {
+		ViewportPredictor predictor = new ViewportPredictor();
+		// 10 units per frame to the right is 625 units per second
+		for (int i = 0; i < 20; i++) predictor.sample(i * FRAME, i * 10, 50, 100, 100);
+		assertThat(predictor.isMoving()).isTrue();
+		Bounds ahead = predictor.predict(0.2);
+		assertThat(ahead.getMinX()).isCloseTo(190 + 125, Offset.offset(1d));
+		assertThat(ahead.getMinY()).isCloseTo(50, EQ_OFFSET);
+		assertThat(ahead.getWidth()).isCloseTo(100, EQ_OFFSET);
+	}
+
+	@Test public void testExtrapolatesZoom() {
+		ViewportPredictor predictor = new ViewportPredictor();
+		// the viewport halves every 10 frames around a fixed centre
+		for (int i = 0; i < 40; i++) {
+			double size = 100 * Math.pow(0.5, i / 10.0);
+			predictor.sample(i * FRAME, 200 - size / 2, 200 - size / 2, size, size);
+		}
+		double last = 100 * Math.pow(0.5, 3.9);
+		Bounds ahead = predictor.predict(10 * FRAME / 1e9);
+		assertThat(ahead.getWidth()).isCloseTo(last / 2, Offset.offset(1e-3));
+		assertThat(ahead.getMinX() + ahead.getWidth() / 2).isCloseTo(200, EQ_OFFSET);
+	}
+
+	@Test public void testGapStartsNewMotion() {
+		ViewportPredictor predictor = new ViewportPredictor();
+		predictor.sample(0, 0, 0, 100, 100);
+		predictor.sample(FRAME, 10, 0, 100, 100);
+		assertThat(predictor.isMoving()).isTrue();
+		predictor.sample(FRAME + ViewportPredictor.MAX_GAP_NANOS + 1, 500, 0, 100, 100);
+		assertThat(predictor.isMoving()).isFalse();
+		assertThat(predictor.predict(1).getMinX()).isCloseTo(500, EQ_OFFSET);
+		predictor.sample(2 * FRAME + ViewportPredictor.MAX_GAP_NANOS, 510, 0, 100, 100);
+		predictor.reset();
+		assertThat(predictor.isMoving()).isFalse();
+	}
+}
@@ -0,0 +1,99 @@
+package net.kurobako.gesturefx;
+
+import org.assertj.core.data.Offset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.testfx.api.FxToolkit;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import javafx.animation.Interpolator;
+import javafx.application.Platform;
+import javafx.geometry.Bounds;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Point2D;
+import javafx.scene.shape.Rectangle;
+import javafx.util.Duration;
+
+import static net.kurobako.gesturefx.GesturePaneTests.HANDLER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testfx.util.WaitForAsyncUtils.waitForAsyncFx;
+
+public class ViewportPrefetcherTest {
+
+	@BeforeClass public static void setupClass() { GesturePaneTests.setupProperties(); }
+
+	private final List<Bounds> regions = new CopyOnWriteArrayList<>();
+	private GesturePane pane;
+	private ViewportPrefetcher prefetcher;
+
+	@Before public void setup() throws Exception {
+		if (Platform.isFxApplicationThread()) throw new AssertionError("Invalid test state");
+		Thread.setDefaultUncaughtExceptionHandler(HANDLER);
+		FxToolkit.registerPrimaryStage();
+		FxToolkit.setupSceneRoot(() -> {
+			Thread.currentThread().setUncaughtExceptionHandler(HANDLER);
+			pane = new GesturePane(new Rectangle(4096, 4096));
+			pane.setScrollBarPolicy(GesturePane.ScrollBarPolicy.NEVER);
+			pane.setPrefSize(256, 256);
+			prefetcher = new ViewportPrefetcher(pane);
+			prefetcher.addLoader(regions::add);
+			return pane;
+		});
+		FxToolkit.setupStage(stage -> stage.sizeToScene());
+		FxToolkit.showStage();
+		WaitForAsyncUtils.waitForFxEvents();
+		waitForAsyncFx(5000, () -> pane.centreOn(new Point2D(1024, 1024)));
+		WaitForAsyncUtils.waitForFxEvents();
+		regions.clear();
+	}
+
+	@After public void tearDown() throws Exception {
+		waitForAsyncFx(5000, () -> prefetcher.dispose());
+		FxToolkit.cleanupStages();
+	}
+
+	@Test public void testPredictsAheadOfPan() throws Exception {
+		List<Bounds[]> predicted = new CopyOnWriteArrayList<>();
+		waitForAsyncFx(5000, () -> {
+			prefetcher.addLoader(region -> predicted.add(
+					new Bounds[]{pane.getTargetViewport(), region}));
+			pane.animate(Duration.millis(500))
+					.interpolateWith(Interpolator.LINEAR)
+					.translateBy(new Dimension2D(800, 0));
+		});
+		WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS, () -> !pane.isChanging());
+		assertThat(predicted).isNotEmpty().allSatisfy(pair -> {
+			assertThat(pair[1].getMinX()).isGreaterThan(pair[0].getMinX());
+			assertThat(pair[1].getMinY()).isCloseTo(pair[0].getMinY(), Offset.offset(1e-6));
+		});
+	}
+
+	@Test public void testSamplesOncePerPulse() {
+		waitForAsyncFx(5000, () -> pane.translateBy(new Dimension2D(20, 20)));
+		WaitForAsyncUtils.waitForFxEvents();
+		regions.clear();
+		waitForAsyncFx(5000, () -> {
+			// every write changes the target viewport, only the final one is a view
+			pane.affine.setTx(pane.affine.getTx() - 20);
+			pane.affine.setTy(pane.affine.getTy() - 20);
+		});
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(regions).hasSize(1);
+	}
+
+	@Test public void testResizeIsNotMotion() {
+		waitForAsyncFx(5000, () -> pane.translateBy(new Dimension2D(20, 20)));
+		WaitForAsyncUtils.waitForFxEvents();
+		regions.clear();
+		waitForAsyncFx(5000, () -> pane.getScene().getWindow().setWidth(400));
+		WaitForAsyncUtils.waitForFxEvents();
+		assertThat(waitForAsyncFx(5000, pane::getViewportWidth)).isEqualTo(400d);
+		assertThat(regions).isEmpty();
+	}
+}
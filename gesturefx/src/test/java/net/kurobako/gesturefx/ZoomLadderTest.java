@@ -0,0 +1,43 @@
+package net.kurobako.gesturefx;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ZoomLadderTest {
+
+	@Test public void testPowersOfTwo() {
+		ZoomLadder ladder = ZoomLadder.powersOfTwo(0.3, 10);
+		assertThat(ladder.getScales()).containsExactly(0.5, 1, 2, 4, 8);
+		// nearest in log space, 1.4 is just below sqrt(2)
+		assertThat(ladder.nearest(1.4)).isEqualTo(1);
+		assertThat(ladder.nearest(1.5)).isEqualTo(2);
+		assertThat(ladder.nearest(100)).isEqualTo(8);
+		assertThat(ladder.nearest(0.01)).isEqualTo(0.5);
+		assertThat(ladder.contains(4)).isTrue();
+		assertThat(ladder.contains(3)).isFalse();
+	}
+
+	@Test public void testHigherAndLower() {
+		ZoomLadder ladder = ZoomLadder.of(3, 1, 2, 2);
+		assertThat(ladder.getScales()).containsExactly(1, 2, 3);
+		assertThat(ladder.higher(2)).isEqualTo(3);
+		assertThat(ladder.higher(1.5)).isEqualTo(2);
+		assertThat(ladder.higher(3)).isEqualTo(3);
+		assertThat(ladder.lower(2)).isEqualTo(1);
+		assertThat(ladder.lower(1)).isEqualTo(1);
+		assertThat(ZoomLadder.integers(4).getScales()).containsExactly(1, 2, 3, 4);
+	}
+
+	@Test public void testInvalidLaddersRejected() {
+		assertThatThrownBy(ZoomLadder::of).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ZoomLadder.of(1, 0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ZoomLadder.of(Double.NaN))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ZoomLadder.powersOfTwo(3, 3.5))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ZoomLadder.integers(0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}